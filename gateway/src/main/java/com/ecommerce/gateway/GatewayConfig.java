@@ -2,23 +2,28 @@ package com.ecommerce.gateway;
 
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+//Order-service may keep carts in memory per instance; pin each user to one instance
+@LoadBalancerClient(name = "ORDER-SERVICE", configuration = UserAffinityLoadBalancer.Config.class)
 public class GatewayConfig {
 
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder){
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder,
+                                           ProductResponseCacheFilter productResponseCacheFilter){
         return builder.routes()
                 .route("product-service", r -> r
                         .path("/api/products/**")
+                        .filters(f -> f.filter(productResponseCacheFilter))
                         .uri("lb://PRODUCT-SERVICE"))
                 .route("user-service", r -> r
                         .path("/api/users/**")
                         .uri("lb://USER-SERVICE"))
                 .route("order-service", r -> r
-                        .path("/api/order/**", "/api/cart/**")
+                        .path("/api/orders/**", "/api/cart/**")
                         .uri("lb://ORDER-SERVICE"))
                 .route("eureka-server", r -> r
                         .path("/eureka/main")
@@ -0,0 +1,53 @@
+package com.ecommerce.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class InMemoryTokenBucketStore implements TokenBucketStore {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    //Idle buckets are dropped; a bucket that has been idle that long would be full anyway
+    private final Cache<String, AtomicReference<BucketState>> buckets;
+
+    public InMemoryTokenBucketStore(
+            @Value("${app.rate-limit.idle-expiry:10m}") Duration idleExpiry,
+            @Value("${app.rate-limit.maximum-keys:100000}") long maximumKeys) {
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleExpiry)
+                .maximumSize(maximumKeys)
+                .build();
+    }
+
+    @Override
+    public ConsumeResult tryConsume(String key, long capacity, double refillPerSecond) {
+        AtomicReference<BucketState> bucket = buckets.get(key,
+                k -> new AtomicReference<>(new BucketState(capacity, System.nanoTime())));
+
+        while(true) {
+            BucketState current = bucket.get();
+            long now = System.nanoTime();
+            double elapsedSeconds = Math.max(0, now - current.lastRefillNanos()) / NANOS_PER_SECOND;
+            double tokens = Math.min(capacity, current.tokens() + elapsedSeconds * refillPerSecond);
+
+            if(tokens < 1) {
+                long waitNanos = (long) Math.ceil((1 - tokens) / refillPerSecond * NANOS_PER_SECOND);
+                return new ConsumeResult(false, 0, Duration.ofNanos(waitNanos));
+            }
+
+            BucketState next = new BucketState(tokens - 1, now);
+            if(bucket.compareAndSet(current, next)) {
+                return new ConsumeResult(true, (long) next.tokens(), Duration.ZERO);
+            }
+        }
+    }
+
+    private record BucketState(double tokens, long lastRefillNanos) {
+    }
+}
@@ -1,27 +1,184 @@
 package com.ecommerce.gateway;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-//@Component
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnProperty(prefix = "app.jwt", name = "enabled", havingValue = "true")
 public class JwtAuthFilter implements WebFilter {
 
+    //Set only for requests whose token was verified; unlike X-User-ID it cannot come from the caller
+    public static final String VERIFIED_USER_ID_ATTR = JwtAuthFilter.class.getName() + ".verifiedUserId";
+
+    private final ConfigurableJWTProcessor<SecurityContext> jwtProcessor;
+    private final String userIdClaim;
+    private final List<PathPattern> publicPaths;
+
+    //Verified tokens keyed by SHA-256 of the raw token; each entry expires at the token's exp
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtAuthFilter(@Value("${app.jwt.jwks-uri:}") String jwksUri,
+                         @Value("${app.jwt.jwks-location:}") String jwksLocation,
+                         @Value("${app.jwt.jwks-cache-ttl:15m}") Duration jwksCacheTtl,
+                         @Value("${app.jwt.issuer:}") String issuer,
+                         @Value("${app.jwt.algorithms:RS256}") List<String> algorithms,
+                         @Value("${app.jwt.user-id-claim:sub}") String userIdClaim,
+                         @Value("${app.jwt.public-paths:/actuator/**,/eureka/**}") List<String> publicPaths,
+                         @Value("${app.jwt.verified-cache-size:50000}") long verifiedCacheSize) throws IOException, ParseException {
+        JWKSource<SecurityContext> jwkSource = jwkSource(jwksUri, jwksLocation, jwksCacheTtl);
+
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                algorithms.stream().map(JWSAlgorithm::parse).collect(Collectors.toSet()),
+                jwkSource));
+        JWTClaimsSet exactMatchClaims = StringUtils.hasText(issuer)
+                ? new JWTClaimsSet.Builder().issuer(issuer).build()
+                : new JWTClaimsSet.Builder().build();
+        processor.setJWTClaimsSetVerifier(new DefaultJWTClaimsVerifier<>(exactMatchClaims, Set.of(userIdClaim, "exp")));
+        this.jwtProcessor = processor;
+
+        this.userIdClaim = userIdClaim;
+        this.publicPaths = publicPaths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.creating((String hash, VerifiedToken token) -> token.timeToLive()))
+                .build();
+    }
+
+    private static JWKSource<SecurityContext> jwkSource(String jwksUri, String jwksLocation, Duration cacheTtl)
+            throws IOException, ParseException {
+        if(StringUtils.hasText(jwksLocation)) {
+            //Keys shipped with the gateway; no network round trip at all
+            return new ImmutableJWKSet<>(JWKSet.load(Path.of(jwksLocation).toFile()));
+        }
+        if(!StringUtils.hasText(jwksUri)) {
+            throw new IllegalStateException("app.jwt.jwks-uri or app.jwt.jwks-location must be set when app.jwt.enabled=true");
+        }
+        return JWKSourceBuilder.<SecurityContext>create(URI.create(jwksUri).toURL())
+                .cache(cacheTtl.toMillis(), JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                .retrying(true)
+                .build();
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+      //Never trust a caller-supplied user id
+      ServerWebExchange stripped = exchange.mutate()
+              .request(r -> r.headers(h -> h.remove(RateLimitFilter.USER_ID_HEADER)))
+              .build();
+
+      if(isPublic(exchange)) {
+          return chain.filter(stripped);
+      }
+
       String authHeader =  exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
       if(authHeader == null || !authHeader.startsWith("Bearer ")){
-          exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-          return exchange.getResponse().setComplete();
+          return unauthorized(exchange);
       }
 
-      //TODO: Validate JWT Token
-      return chain.filter(exchange);
+      String token = authHeader.substring("Bearer ".length()).trim();
+      String hash = sha256(token);
+      VerifiedToken cached = verifiedTokens.getIfPresent(hash);
+      Mono<VerifiedToken> verified = cached != null
+              ? Mono.just(cached)
+              : Mono.fromCallable(() -> verify(token, hash))
+                      .subscribeOn(Schedulers.boundedElastic());
+
+      return verified
+              .flatMap(user -> {
+                  ServerWebExchange authenticated = stripped.mutate()
+                          .request(r -> r.header(RateLimitFilter.USER_ID_HEADER, user.userId()))
+                          .build();
+                  authenticated.getAttributes().put(VERIFIED_USER_ID_ATTR, user.userId());
+                  return chain.filter(authenticated);
+              })
+              .onErrorResume(InvalidTokenException.class, e -> unauthorized(exchange));
+    }
+
+    private VerifiedToken verify(String token, String hash) {
+        try {
+            JWTClaimsSet claims = jwtProcessor.process(token, null);
+            VerifiedToken verified = new VerifiedToken(
+                    claims.getStringClaim(userIdClaim), claims.getExpirationTime().toInstant());
+            verifiedTokens.put(hash, verified);
+            return verified;
+        } catch (Exception e) {
+            throw new InvalidTokenException(e);
+        }
+    }
+
+    private boolean isPublic(ServerWebExchange exchange) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        return publicPaths.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    private Mono<Void> unauthorized(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        return exchange.getResponse().setComplete();
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(String userId, Instant expiresAt) {
+        Duration timeToLive() {
+            Duration remaining = Duration.between(Instant.now(), expiresAt);
+            return remaining.isNegative() ? Duration.ZERO : remaining;
+        }
+    }
+
+    private static class InvalidTokenException extends RuntimeException {
+        InvalidTokenException(Throwable cause) {
+            super(cause);
+        }
     }
 }
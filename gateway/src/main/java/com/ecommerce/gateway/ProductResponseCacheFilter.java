@@ -0,0 +1,190 @@
+package com.ecommerce.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ProductResponseCacheFilter implements GatewayFilter {
+
+    private final Cache<String, CachedResponse> cache;
+    private final ConcurrentMap<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final int maxBodyBytes;
+
+    public ProductResponseCacheFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.response-cache.ttl:30s}") Duration ttl,
+            @Value("${app.response-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.response-cache.max-body-bytes:1048576}") int maxBodyBytes) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.maxBodyBytes = maxBodyBytes;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway-product-responses");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+
+        if(request.getMethod() != HttpMethod.GET) {
+            if(isCatalogWrite(path)) {
+                return chain.filter(exchange).doOnSuccess(done -> cache.invalidateAll());
+            }
+            return chain.filter(exchange);
+        }
+        if(path.startsWith("/api/products/export")) {
+            return chain.filter(exchange);
+        }
+
+        String key = request.getURI().getRawPath() + "?" + request.getURI().getRawQuery();
+        CachedResponse cached = cache.getIfPresent(key);
+        if(cached != null) {
+            return writeCached(exchange, cached);
+        }
+
+        CompletableFuture<CachedResponse> pending = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> leader = inFlight.putIfAbsent(key, pending);
+        if(leader != null) {
+            //An identical request is already on its way upstream; answer from its result.
+            //If it could not be cached (error, non-200), go upstream ourselves.
+            return Mono.fromFuture(leader, true)
+                    .flatMap(response -> writeCached(exchange, response))
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+        }
+
+        ServerWebExchange cachingExchange = exchange.mutate()
+                .response(new CachingResponseDecorator(exchange.getResponse(), key, pending))
+                .build();
+        return chain.filter(cachingExchange)
+                .doFinally(signal -> {
+                    inFlight.remove(key, pending);
+                    pending.complete(null);
+                });
+    }
+
+    private boolean isCatalogWrite(String path) {
+        return !path.startsWith("/api/products/reservations") && !path.equals("/api/products/batch");
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set("X-Cache", "HIT");
+        if(exchange.checkNotModified(cached.etag(), cached.lastModified())) {
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatus.OK);
+        HttpHeaders headers = response.getHeaders();
+        if(cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        DataBuffer buffer = response.bufferFactory().wrap(cached.body());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private class CachingResponseDecorator extends ServerHttpResponseDecorator {
+        private final String key;
+        private final CompletableFuture<CachedResponse> pending;
+
+        CachingResponseDecorator(ServerHttpResponse delegate, String key, CompletableFuture<CachedResponse> pending) {
+            super(delegate);
+            this.key = key;
+            this.pending = pending;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if(!isCacheable()) {
+                return super.writeWith(body);
+            }
+            //Buffers until the body completes or passes maxBodyBytes; past the limit every
+            //further buffer is emitted on its own, so the response streams through uncached
+            AtomicLong size = new AtomicLong();
+            return Flux.<DataBuffer>from(body)
+                    .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodyBytes)
+                    .switchOnFirst((first, buffers) -> {
+                        if(!first.hasValue() || size.get() > maxBodyBytes) {
+                            return super.writeWith(buffers.concatMapIterable(chunk -> chunk));
+                        }
+                        return writeAndCache(first.get(), (int) size.get());
+                    })
+                    .then();
+        }
+
+        private Mono<Void> writeAndCache(List<DataBuffer> buffers, int size) {
+            byte[] bytes = new byte[size];
+            int offset = 0;
+            for (DataBuffer buffer : buffers) {
+                int length = buffer.readableByteCount();
+                buffer.read(bytes, offset, length);
+                offset += length;
+                DataBufferUtils.release(buffer);
+            }
+
+            CachedResponse response = toCachedResponse(bytes);
+            cache.put(key, response);
+            pending.complete(response);
+
+            getHeaders().setETag(response.etag());
+            getHeaders().setLastModified(response.lastModified());
+            getHeaders().set("X-Cache", "MISS");
+            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+        }
+
+        private boolean isCacheable() {
+            HttpHeaders headers = getHeaders();
+            String cacheControl = headers.getCacheControl();
+            return getStatusCode() != null
+                    && getStatusCode().isSameCodeAs(HttpStatus.OK)
+                    && !MediaType.APPLICATION_NDJSON.isCompatibleWith(headers.getContentType())
+                    && (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")));
+        }
+
+        private CachedResponse toCachedResponse(byte[] bytes) {
+            HttpHeaders headers = getHeaders();
+            String etag = headers.getETag() != null
+                    ? headers.getETag()
+                    : "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+            Instant lastModified = headers.getLastModified() > 0
+                    ? Instant.ofEpochMilli(headers.getLastModified())
+                    : Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            return new CachedResponse(headers.getContentType(), bytes, etag, lastModified);
+        }
+    }
+
+    private record CachedResponse(MediaType contentType, byte[] body, String etag, Instant lastModified) {
+    }
+}
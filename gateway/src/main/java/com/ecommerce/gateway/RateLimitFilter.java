@@ -0,0 +1,77 @@
+package com.ecommerce.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    static final String USER_ID_HEADER = "X-User-ID";
+
+    private final RateLimitProperties properties;
+    private final TokenBucketStore tokenBucketStore;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimitProperties properties, TokenBucketStore tokenBucketStore,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokenBucketStore = tokenBucketStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if(!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+        RateLimitProperties.Policy policy = properties.getRoutes().get(route.getId());
+        if(policy == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = route.getId() + ":" + resolveClient(exchange);
+        TokenBucketStore.ConsumeResult result =
+                tokenBucketStore.tryConsume(key, policy.getCapacity(), policy.getRefillPerSecond());
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set("X-RateLimit-Remaining", String.valueOf(result.remainingTokens()));
+        if(result.allowed()) {
+            return chain.filter(exchange);
+        }
+
+        meterRegistry.counter("gateway.rate-limit.rejected", "route", route.getId()).increment();
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(result.retryAfter().toMillis() / 1000d));
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    private String resolveClient(ServerWebExchange exchange) {
+        //Only a user id taken from a verified token; the raw header is whatever the caller sent
+        String userId = exchange.getAttribute(JwtAuthFilter.VERIFIED_USER_ID_ATTR);
+        if(userId != null) {
+            return "user:" + userId;
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remoteAddress != null ? remoteAddress.getHostString() : "unknown");
+    }
+
+    @Override
+    public int getOrder() {
+        //Reject before any route work (caching, load balancing) is done
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+}
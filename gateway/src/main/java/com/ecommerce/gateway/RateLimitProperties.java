@@ -0,0 +1,54 @@
+package com.ecommerce.gateway;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    //Keyed by gateway route id; routes without an entry are not limited
+    private Map<String, Policy> routes = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Policy> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Policy> routes) {
+        this.routes = routes;
+    }
+
+    public static class Policy {
+        private long capacity = 100;
+        private double refillPerSecond = 50;
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
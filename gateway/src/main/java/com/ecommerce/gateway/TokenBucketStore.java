@@ -0,0 +1,15 @@
+package com.ecommerce.gateway;
+
+import java.time.Duration;
+
+/**
+ * Holds token buckets by key. The in-memory store is the default; a shared
+ * store (e.g. Redis) can be dropped in when the gateway runs more than one instance.
+ */
+public interface TokenBucketStore {
+
+    ConsumeResult tryConsume(String key, long capacity, double refillPerSecond);
+
+    record ConsumeResult(boolean allowed, long remainingTokens, Duration retryAfter) {
+    }
+}
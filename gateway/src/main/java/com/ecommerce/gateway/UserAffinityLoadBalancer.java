@@ -0,0 +1,100 @@
+package com.ecommerce.gateway;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends every request of a user to the same instance, chosen by rendezvous hashing
+ * of the X-User-ID header over the live instances. Order-service can keep carts in
+ * memory per instance, so a user's cart and checkout calls must land on one node.
+ * When an instance leaves, only its own users move. Requests without a user id are
+ * spread round-robin.
+ */
+public class UserAffinityLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> instanceSuppliers;
+    private final String serviceId;
+    private final AtomicInteger position = new AtomicInteger();
+
+    public UserAffinityLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> instanceSuppliers, String serviceId) {
+        this.instanceSuppliers = instanceSuppliers;
+        this.serviceId = serviceId;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = instanceSuppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String userId = userId(request);
+        return supplier.get(request).next().map(instances -> choose(instances, userId));
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, String userId) {
+        if(instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if(userId == null || userId.isBlank()) {
+            return new DefaultResponse(instances.get(Math.floorMod(position.getAndIncrement(), instances.size())));
+        }
+
+        ServiceInstance chosen = null;
+        long bestScore = Long.MIN_VALUE;
+        for (ServiceInstance instance : instances) {
+            long score = score(userId, instance.getHost() + ":" + instance.getPort());
+            if(chosen == null || score > bestScore) {
+                chosen = instance;
+                bestScore = score;
+            }
+        }
+        return new DefaultResponse(chosen);
+    }
+
+    private String userId(Request request) {
+        if(request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+            //JwtAuthFilter has already replaced the header with the verified id when JWT is on
+            return context.getClientRequest().getHeaders().getFirst(RateLimitFilter.USER_ID_HEADER);
+        }
+        return null;
+    }
+
+    //FNV-1a over user and instance, finished with a 64-bit mix so nearby keys spread evenly
+    private static long score(String userId, String instance) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (userId + "|" + instance).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /** Per-service load balancer configuration; registered through {@code @LoadBalancerClient}, not scanned. */
+    public static class Config {
+
+        @Bean
+        public ReactorLoadBalancer<ServiceInstance> userAffinityLoadBalancer(Environment environment,
+                                                                            LoadBalancerClientFactory clientFactory) {
+            String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+            return new UserAffinityLoadBalancer(
+                    clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId);
+        }
+    }
+}
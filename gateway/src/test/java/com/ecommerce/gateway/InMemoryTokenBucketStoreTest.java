@@ -0,0 +1,89 @@
+package com.ecommerce.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryTokenBucketStoreTest {
+
+    //Slow enough that no test ever sees a refilled token unless it waits for one
+    private static final double NO_REFILL = 1e-9;
+
+    private final InMemoryTokenBucketStore store = new InMemoryTokenBucketStore(Duration.ofMinutes(10), 1_000);
+
+    @Test
+    void admitsUpToCapacityThenRejectsWithRetryAfter() {
+        for(int i = 0; i < 3; i++) {
+            TokenBucketStore.ConsumeResult result = store.tryConsume("user:1", 3, NO_REFILL);
+            assertThat(result.allowed()).isTrue();
+            assertThat(result.remainingTokens()).isEqualTo(2 - i);
+            assertThat(result.retryAfter()).isEqualTo(Duration.ZERO);
+        }
+
+        TokenBucketStore.ConsumeResult rejected = store.tryConsume("user:1", 3, NO_REFILL);
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remainingTokens()).isZero();
+        assertThat(rejected.retryAfter()).isPositive();
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        assertThat(store.tryConsume("user:1", 1, NO_REFILL).allowed()).isTrue();
+        assertThat(store.tryConsume("user:1", 1, NO_REFILL).allowed()).isFalse();
+        assertThat(store.tryConsume("user:2", 1, NO_REFILL).allowed()).isTrue();
+    }
+
+    @Test
+    void refillsAfterRetryAfter() throws InterruptedException {
+        assertThat(store.tryConsume("user:1", 1, 100).allowed()).isTrue();
+
+        TokenBucketStore.ConsumeResult rejected = store.tryConsume("user:1", 1, 100);
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.retryAfter()).isLessThanOrEqualTo(Duration.ofMillis(10));
+
+        Thread.sleep(rejected.retryAfter().toMillis() + 5);
+        assertThat(store.tryConsume("user:1", 1, 100).allowed()).isTrue();
+    }
+
+    @Test
+    void concurrentCallersNeverOverAdmit() throws Exception {
+        int capacity = 100;
+        int threads = 16;
+        int attemptsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for(int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for(int i = 0; i < attemptsPerThread; i++) {
+                        if(store.tryConsume("user:hot", capacity, NO_REFILL).allowed()) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+
+            int totalAllowed = 0;
+            for(Future<Integer> future : futures) {
+                totalAllowed += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(totalAllowed).isEqualTo(capacity);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
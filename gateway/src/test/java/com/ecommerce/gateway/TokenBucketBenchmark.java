@@ -0,0 +1,83 @@
+package com.ecommerce.gateway;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of {@link InMemoryTokenBucketStore#tryConsume} under contention.
+ * Buckets are sized so every call is admitted, which keeps each call on the CAS path.
+ * Run with:
+ * <pre>
+ * ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main TokenBucketBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class TokenBucketBenchmark {
+
+    private static final long CAPACITY = Long.MAX_VALUE / 2;
+    private static final double REFILL_PER_SECOND = 1e12;
+    private static final int DISTINCT_KEYS = 10_000;
+
+    private InMemoryTokenBucketStore store;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryTokenBucketStore(Duration.ofMinutes(10), 100_000);
+    }
+
+    @State(Scope.Thread)
+    public static class ClientKey {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        final String key = "route:user:" + NEXT.getAndIncrement();
+    }
+
+    //Every thread on one bucket: the worst case for CAS retries
+    @Benchmark
+    public TokenBucketStore.ConsumeResult sharedKey() {
+        return store.tryConsume("route:user:hot", CAPACITY, REFILL_PER_SECOND);
+    }
+
+    //One bucket per thread: no CAS contention, only the cache lookup
+    @Benchmark
+    public TokenBucketStore.ConsumeResult keyPerThread(ClientKey client) {
+        return store.tryConsume(client.key, CAPACITY, REFILL_PER_SECOND);
+    }
+
+    //Many clients spread over the cache, as behind a busy gateway
+    @Benchmark
+    public TokenBucketStore.ConsumeResult randomKeys() {
+        String key = "route:user:" + ThreadLocalRandom.current().nextInt(DISTINCT_KEYS);
+        return store.tryConsume(key, CAPACITY, REFILL_PER_SECOND);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenBucketBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
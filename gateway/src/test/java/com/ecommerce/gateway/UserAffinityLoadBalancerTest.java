@@ -0,0 +1,71 @@
+package com.ecommerce.gateway;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAffinityLoadBalancerTest {
+
+    private final UserAffinityLoadBalancer loadBalancer = new UserAffinityLoadBalancer(null, "ORDER-SERVICE");
+    private final List<ServiceInstance> instances = IntStream.range(0, 3)
+            .<ServiceInstance>mapToObj(i -> new DefaultServiceInstance("order-" + i, "ORDER-SERVICE", "10.0.0." + i, 8083, false))
+            .toList();
+
+    @Test
+    void sameUserAlwaysGetsTheSameInstance() {
+        ServiceInstance first = loadBalancer.choose(instances, "user-1").getServer();
+
+        for(int i = 0; i < 10; i++) {
+            assertThat(loadBalancer.choose(instances, "user-1").getServer()).isEqualTo(first);
+        }
+        //Instance order from discovery must not matter
+        assertThat(loadBalancer.choose(instances.reversed(), "user-1").getServer()).isEqualTo(first);
+    }
+
+    @Test
+    void usersAreSpreadOverInstances() {
+        Set<String> used = new HashSet<>();
+        for(int i = 0; i < 100; i++) {
+            used.add(loadBalancer.choose(instances, "user-" + i).getServer().getInstanceId());
+        }
+
+        assertThat(used).hasSize(instances.size());
+    }
+
+    @Test
+    void removingAnInstanceMovesOnlyItsOwnUsers() {
+        ServiceInstance removed = instances.get(0);
+        List<ServiceInstance> remaining = new ArrayList<>(instances.subList(1, instances.size()));
+
+        for(int i = 0; i < 100; i++) {
+            String userId = "user-" + i;
+            ServiceInstance before = loadBalancer.choose(instances, userId).getServer();
+            if(!before.equals(removed)) {
+                assertThat(loadBalancer.choose(remaining, userId).getServer()).isEqualTo(before);
+            }
+        }
+    }
+
+    @Test
+    void requestsWithoutUserAreRoundRobin() {
+        Set<String> used = new HashSet<>();
+        for(int i = 0; i < instances.size(); i++) {
+            used.add(loadBalancer.choose(instances, null).getServer().getInstanceId());
+        }
+
+        assertThat(used).hasSize(instances.size());
+    }
+
+    @Test
+    void noInstancesGivesAnEmptyResponse() {
+        assertThat(loadBalancer.choose(List.of(), "user-1").hasServer()).isFalse();
+    }
+}
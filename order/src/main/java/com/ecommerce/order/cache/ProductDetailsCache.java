@@ -0,0 +1,63 @@
+package com.ecommerce.order.cache;
+
+import com.ecommerce.order.clients.ProductServiceClient;
+import com.ecommerce.order.dto.ProductResponse;
+import com.ecommerce.order.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class ProductDetailsCache {
+
+    private final ProductServiceClient productServiceClient;
+    private final Cache<String, ProductResponse> cache;
+
+    public ProductDetailsCache(
+            ProductServiceClient productServiceClient,
+            MeterRegistry meterRegistry,
+            @Value("${app.product-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.product-cache.ttl:30s}") Duration ttl) {
+        this.productServiceClient = productServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product-details");
+    }
+
+    public ProductResponse getProduct(String productId) {
+        return cache.get(productId, productServiceClient::getProductDetails);
+    }
+
+    public Map<String, ProductResponse> getProducts(Collection<String> productIds) {
+        return cache.getAll(productIds, this::loadProducts);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(event.getProductId());
+    }
+
+    private Map<String, ProductResponse> loadProducts(Set<? extends String> productIds) {
+        List<ProductResponse> products = productServiceClient.getProductDetailsBatch(List.copyOf(productIds));
+        if(products == null) {
+            return Map.of();
+        }
+        return products.stream()
+                .collect(Collectors.toMap(product -> String.valueOf(product.getId()), Function.identity()));
+    }
+}
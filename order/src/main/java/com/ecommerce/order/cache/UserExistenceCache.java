@@ -0,0 +1,59 @@
+package com.ecommerce.order.cache;
+
+import com.ecommerce.order.clients.UserServiceClient;
+import com.ecommerce.order.event.UserChangedEvent;
+import com.ecommerce.order.event.UsersImportedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class UserExistenceCache {
+
+    private final UserServiceClient userServiceClient;
+    //Boolean.TRUE/FALSE are shared instances, so an entry costs little more than its key
+    private final Cache<String, Boolean> cache;
+
+    public UserExistenceCache(
+            UserServiceClient userServiceClient,
+            MeterRegistry meterRegistry,
+            @Value("${app.user-cache.maximum-size:100000}") long maximumSize,
+            @Value("${app.user-cache.positive-ttl:10m}") Duration positiveTtl,
+            @Value("${app.user-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.userServiceClient = userServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.creating((String userId, Boolean exists) -> exists ? positiveTtl : negativeTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-existence");
+    }
+
+    public boolean exists(String userId) {
+        return cache.get(userId, this::loadExists);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        //A created or updated user exists; this also clears a cached "not found"
+        cache.put(event.getUserId(), Boolean.TRUE);
+    }
+
+    @EventListener
+    public void onUsersImported(UsersImportedEvent event) {
+        event.getUserIds().forEach(userId -> cache.put(userId, Boolean.TRUE));
+    }
+
+    private Boolean loadExists(String userId) {
+        ResponseEntity<Void> response = userServiceClient.userExists(userId);
+        return response != null && response.getStatusCode().is2xxSuccessful();
+    }
+}
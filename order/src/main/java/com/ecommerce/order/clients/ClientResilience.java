@@ -0,0 +1,105 @@
+package com.ecommerce.order.clients;
+
+import com.ecommerce.order.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.function.Supplier;
+
+@Component
+public class ClientResilience {
+
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+
+    public ClientResilience(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+    }
+
+    public Guard forTarget(String target) {
+        ResilienceProperties.Target config = properties.forTarget(target);
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(target, CircuitBreakerConfig.custom()
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallRateThreshold(config.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(config.getSlowCallDurationThreshold())
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(config.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(config.getPermittedCallsInHalfOpenState())
+                //A full bulkhead or a 4xx answer (not found, out of stock) says nothing about the health of the target;
+                //connection errors, timeouts and 5xx are what count as failures
+                .ignoreExceptions(BulkheadFullException.class, HttpClientErrorException.class)
+                .build());
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(target, BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxWaitDuration(config.getMaxWaitDuration())
+                .build());
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> meterRegistry.counter(
+                "order.client.circuit-breaker.transitions",
+                "target", target,
+                "from", event.getStateTransition().getFromState().name(),
+                "to", event.getStateTransition().getToState().name()).increment());
+        bulkhead.getEventPublisher().onCallRejected(event -> meterRegistry.counter(
+                "order.client.bulkhead.rejected", "target", target).increment());
+
+        return new Guard(target, circuitBreaker, bulkhead);
+    }
+
+    public static class Guard {
+        private final String target;
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+
+        Guard(String target, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+            this.target = target;
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+        }
+
+        public <T> T call(Supplier<T> call) {
+            Supplier<T> guarded = CircuitBreaker.decorateSupplier(circuitBreaker,
+                    Bulkhead.decorateSupplier(bulkhead, call));
+            try {
+                return guarded.get();
+            } catch (CallNotPermittedException | BulkheadFullException e) {
+                throw new ServiceUnavailableException(target + " is currently unavailable", e);
+            }
+        }
+
+        /** Like {@link #call}, but a 404 from the target is answered with null. */
+        public <T> T find(Supplier<T> call) {
+            return call(() -> {
+                try {
+                    return call.get();
+                } catch (HttpClientErrorException.NotFound e) {
+                    return null;
+                }
+            });
+        }
+
+        public void run(Runnable call) {
+            call(() -> {
+                call.run();
+                return null;
+            });
+        }
+    }
+}
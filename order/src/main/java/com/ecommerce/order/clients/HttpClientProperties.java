@@ -0,0 +1,31 @@
+package com.ecommerce.order.clients;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.http-client")
+public class HttpClientProperties {
+
+    private Map<String, Target> targets = new HashMap<>();
+
+    public Target forTarget(String name) {
+        return targets.getOrDefault(name, new Target());
+    }
+
+    @Data
+    public static class Target {
+        private int maxConnections = 100;
+        private int maxConnectionsPerRoute = 20;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private boolean http2 = false;
+    }
+}
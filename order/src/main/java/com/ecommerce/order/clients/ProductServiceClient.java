@@ -1,13 +1,32 @@
 package com.ecommerce.order.clients;
 
 import com.ecommerce.order.dto.ProductResponse;
+import com.ecommerce.order.dto.ReservationRequest;
+import com.ecommerce.order.dto.ReservationResponse;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.service.annotation.DeleteExchange;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
+import org.springframework.web.service.annotation.PostExchange;
+
+import java.util.List;
 
 @HttpExchange
 public interface ProductServiceClient {
 
     @GetExchange("/api/products/{id}")
     ProductResponse getProductDetails(@PathVariable String id);
+
+    @PostExchange("/api/products/batch")
+    List<ProductResponse> getProductDetailsBatch(@RequestBody List<String> ids);
+
+    @PostExchange("/api/products/reservations")
+    ReservationResponse reserveStock(@RequestBody ReservationRequest request);
+
+    @PostExchange("/api/products/reservations/{id}/confirm")
+    ReservationResponse confirmReservation(@PathVariable String id);
+
+    @DeleteExchange("/api/products/reservations/{id}")
+    void releaseReservation(@PathVariable String id);
 }
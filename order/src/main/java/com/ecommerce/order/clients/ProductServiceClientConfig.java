@@ -1,6 +1,7 @@
 package com.ecommerce.order.clients;
 
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerInterceptor;
 import org.springframework.context.annotation.Bean;
@@ -9,29 +10,26 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 import org.springframework.web.client.RestClient;
-import java.util.Optional;
-import org.springframework.http.HttpStatusCode;
 
 @Configuration
 public class ProductServiceClientConfig {
 
     @Bean
-    public ProductServiceClient productServiceClient(RestTemplate restTemplate, LoadBalancerClient loadBalancerClient){
+    public ProductServiceClient productServiceClient(@Qualifier("productServiceRestTemplate") RestTemplate restTemplate, LoadBalancerClient loadBalancerClient,
+                                                         ClientResilience clientResilience){
         RestClient.Builder builder = RestClient.builder(restTemplate);
 
         builder.requestInterceptor(new LoadBalancerInterceptor(loadBalancerClient));
         
         RestClient restClient = builder
                 .baseUrl("http://product-service")
-                .defaultStatusHandler(
-                        HttpStatusCode::is4xxClientError,
-                        (request, response) -> Optional.empty()
-                )
                 .build();
         RestClientAdapter adapter = RestClientAdapter.create(restClient);
         HttpServiceProxyFactory factory = HttpServiceProxyFactory
                 .builderFor(adapter)
                 .build();
-        return factory.createClient(ProductServiceClient.class);
+        return new ResilientProductServiceClient(
+                factory.createClient(ProductServiceClient.class),
+                clientResilience.forTarget("product-service"));
     }
 }
@@ -0,0 +1,75 @@
+package com.ecommerce.order.clients;
+
+import com.ecommerce.order.exception.ServiceUnavailableException;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Component
+public class RemoteCallExecutor implements DisposableBean {
+
+    private final ExecutorService executor;
+    private final Duration timeout;
+
+    public RemoteCallExecutor(@Value("${app.remote-calls.timeout:2s}") Duration timeout) {
+        //Virtual threads, with the current trace context carried over to each call
+        ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+        this.executor = ContextExecutorService.wrap(
+                Executors.newVirtualThreadPerTaskExecutor(),
+                snapshotFactory::captureAll
+        );
+        this.timeout = timeout;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static <T> T await(CompletableFuture<T> future) {
+        return await(future, null);
+    }
+
+    /**
+     * Waits for a submitted call. {@code onNotFound} is thrown only when the target
+     * answered 404; a timeout or a failing target is a 503, never "not found".
+     */
+    public static <T> T await(CompletableFuture<T> future, Supplier<? extends RuntimeException> onNotFound) {
+        try {
+            return future.join();
+        } catch (CancellationException e) {
+            throw new ServiceUnavailableException("Remote call was cancelled", e);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof HttpClientErrorException.NotFound && onNotFound != null) {
+                throw onNotFound.get();
+            }
+            if(cause instanceof TimeoutException || cause instanceof RestClientException) {
+                throw new ServiceUnavailableException("Remote call failed or timed out", cause);
+            }
+            if(cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.order.clients;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.resilience")
+public class ResilienceProperties {
+
+    private Map<String, Target> targets = new HashMap<>();
+
+    public Target forTarget(String name) {
+        return targets.getOrDefault(name, new Target());
+    }
+
+    @Data
+    public static class Target {
+        //Circuit breaker
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 5;
+        //Semaphore bulkhead
+        private int maxConcurrentCalls = 50;
+        private Duration maxWaitDuration = Duration.ZERO;
+        //How long a successful answer may be served when the target is unavailable; zero disables the fallback
+        private Duration fallbackTtl = Duration.ZERO;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.order.clients;
+
+import com.ecommerce.order.dto.ProductResponse;
+import com.ecommerce.order.dto.ReservationRequest;
+import com.ecommerce.order.dto.ReservationResponse;
+
+import java.util.List;
+
+/**
+ * Runs every product-service call through its circuit breaker and bulkhead.
+ * There is no sensible stale answer for prices, stock or reservations, so
+ * an unavailable product service surfaces as a 503.
+ */
+public class ResilientProductServiceClient implements ProductServiceClient {
+
+    private final ProductServiceClient delegate;
+    private final ClientResilience.Guard guard;
+
+    public ResilientProductServiceClient(ProductServiceClient delegate, ClientResilience.Guard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public ProductResponse getProductDetails(String id) {
+        return guard.find(() -> delegate.getProductDetails(id));
+    }
+
+    @Override
+    public List<ProductResponse> getProductDetailsBatch(List<String> ids) {
+        return guard.call(() -> delegate.getProductDetailsBatch(ids));
+    }
+
+    @Override
+    public ReservationResponse reserveStock(ReservationRequest request) {
+        return guard.call(() -> delegate.reserveStock(request));
+    }
+
+    @Override
+    public ReservationResponse confirmReservation(String id) {
+        return guard.call(() -> delegate.confirmReservation(id));
+    }
+
+    @Override
+    public void releaseReservation(String id) {
+        guard.run(() -> delegate.releaseReservation(id));
+    }
+}
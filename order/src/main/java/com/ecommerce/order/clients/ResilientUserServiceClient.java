@@ -0,0 +1,62 @@
+package com.ecommerce.order.clients;
+
+import com.ecommerce.order.exception.ServiceUnavailableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Runs user-service calls through its circuit breaker and bulkhead. While the
+ * user service is unavailable, users seen to exist recently are still answered
+ * from the last successful check so existing customers can keep checking out.
+ */
+@Slf4j
+public class ResilientUserServiceClient implements UserServiceClient {
+
+    private final UserServiceClient delegate;
+    private final ClientResilience.Guard guard;
+    private final Cache<String, Boolean> knownUserIds;
+
+    public ResilientUserServiceClient(UserServiceClient delegate, ClientResilience.Guard guard, Duration fallbackTtl) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.knownUserIds = fallbackTtl.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(fallbackTtl)
+                .build();
+    }
+
+    @Override
+    public ResponseEntity<Void> userExists(String id) {
+        try {
+            ResponseEntity<Void> response = guard.find(() -> delegate.userExists(id));
+            if(response != null && response.getStatusCode().is2xxSuccessful() && knownUserIds != null) {
+                knownUserIds.put(id, Boolean.TRUE);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            return fallback(id, e, () -> knownUserIds != null && knownUserIds.getIfPresent(id) != null
+                    ? ResponseEntity.ok().<Void>build()
+                    : null);
+        }
+    }
+
+    private <T> T fallback(String id, RuntimeException failure, Supplier<T> lastKnown) {
+        if(failure instanceof HttpClientErrorException) {
+            //The user service answered; it is not unavailable
+            throw failure;
+        }
+        T known = lastKnown.get();
+        if(known == null) {
+            throw failure instanceof ServiceUnavailableException ? failure
+                    : new ServiceUnavailableException("user-service is currently unavailable", failure);
+        }
+        log.warn("User service unavailable, answering user {} from last known state", id);
+        return known;
+    }
+}
@@ -1,17 +1,35 @@
 package com.ecommerce.order.clients;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
 import io.micrometer.observation.ObservationRegistry;
 import io.micrometer.tracing.Tracer;
 import io.micrometer.tracing.propagation.Propagator;
 import lombok.Data;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+
 @Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, ResilienceProperties.class})
 @Data
 public class RestClientConfig {
 
@@ -28,9 +46,30 @@ public class RestClientConfig {
         this.propagator = propagator;
     }
 
+    //The request factories are beans so that shutdown closes their HTTP clients: closing the pooled
+    //client stops its idle-connection evictor and shuts down the connection manager it owns
+    @Bean
+    public ClientHttpRequestFactory productServiceRequestFactory(HttpClientProperties properties, MeterRegistry meterRegistry){
+        return createRequestFactory("product-service", properties.forTarget("product-service"), meterRegistry);
+    }
+
+    @Bean
+    public ClientHttpRequestFactory userServiceRequestFactory(HttpClientProperties properties, MeterRegistry meterRegistry){
+        return createRequestFactory("user-service", properties.forTarget("user-service"), meterRegistry);
+    }
+
+    @Bean
+    public RestTemplate productServiceRestTemplate(@Qualifier("productServiceRequestFactory") ClientHttpRequestFactory requestFactory){
+        return createRestTemplate(requestFactory);
+    }
+
     @Bean
-    public RestTemplate restTemplate(){
-        RestTemplate restTemplate  = new RestTemplate();
+    public RestTemplate userServiceRestTemplate(@Qualifier("userServiceRequestFactory") ClientHttpRequestFactory requestFactory){
+        return createRestTemplate(requestFactory);
+    }
+
+    private RestTemplate createRestTemplate(ClientHttpRequestFactory requestFactory){
+        RestTemplate restTemplate  = new RestTemplate(requestFactory);
 
         if(observationRegistry != null){
             restTemplate.getInterceptors().add(createTracingInterceptor());
@@ -38,6 +77,42 @@ public class RestClientConfig {
         return restTemplate; 
     }
 
+    private ClientHttpRequestFactory createRequestFactory(String target, HttpClientProperties.Target config, MeterRegistry meterRegistry) {
+        if(config.isHttp2()){
+            //JDK client multiplexes requests over HTTP/2 connections, so there is no pool to size or meter
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(config.getConnectTimeout())
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(config.getReadTimeout());
+            return requestFactory;
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConnections())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(config.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(config.getConnectionTimeToLive()))
+                        .build())
+                .build();
+
+        //Exposes leased, pending and available connections as httpcomponents.httpclient.pool.* metrics
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, target).bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(config.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(config.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(config.getIdleTimeout()))
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
     private ClientHttpRequestInterceptor createTracingInterceptor() {
         return ((request, body, execution) -> {
 
@@ -1,13 +1,12 @@
 package com.ecommerce.order.clients;
 
 
-import com.ecommerce.order.dto.UserResponse;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 
 @HttpExchange
 public interface UserServiceClient {
-    @GetExchange("/api/users/{id}")
-    UserResponse getUserDetails(@PathVariable String id);
+    @HttpExchange(method = "HEAD", url = "/api/users/{id}")
+    ResponseEntity<Void> userExists(@PathVariable String id);
 }
@@ -4,6 +4,7 @@ package com.ecommerce.order.controller;
 import com.ecommerce.order.dto.CartItemRequest;
 import com.ecommerce.order.model.CartItem;
 import com.ecommerce.order.service.CartService;
+import com.ecommerce.order.service.IdempotencyService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,15 +17,42 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CartController {
     private final CartService cartService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ResponseEntity<String> addToCart(
             @RequestHeader("X-User-ID") String userId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @RequestBody CartItemRequest request
             )
     {
-        cartService.addToCart(userId, request);
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        return idempotencyService.execute(userId, "POST /api/cart", idempotencyKey, request, String.class, () -> {
+            cartService.addToCart(userId, request);
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        });
+    }
+
+    @PostMapping("/items")
+    public ResponseEntity<Void> addItemsToCart(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody List<CartItemRequest> requests
+    )
+    {
+        return idempotencyService.execute(userId, "POST /api/cart/items", idempotencyKey, requests, Void.class, () -> {
+            cartService.addItemsToCart(userId, requests);
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        });
+    }
+
+    @PutMapping
+    public ResponseEntity<Void> replaceCart(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestBody List<CartItemRequest> requests
+    )
+    {
+        cartService.replaceCart(userId, requests);
+        return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/items/{productId}")
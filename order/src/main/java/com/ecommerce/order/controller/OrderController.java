@@ -1,26 +1,63 @@
 package com.ecommerce.order.controller;
 
 
+import com.ecommerce.order.dto.OrderPage;
 import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.service.CheckoutPipeline;
+import com.ecommerce.order.service.IdempotencyService;
 import com.ecommerce.order.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/orders")
 public class OrderController {
     private final OrderService orderService;
+    private final CheckoutPipeline checkoutPipeline;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(@RequestHeader("X-User-ID") String userId) {
+    public ResponseEntity<OrderResponse> createOrder(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        return idempotencyService.execute(userId, "POST /api/orders", idempotencyKey, null, OrderResponse.class,
+                () -> placeOrder(userId));
+    }
+
+    private ResponseEntity<OrderResponse> placeOrder(String userId) {
+        if(checkoutPipeline.isEnabled()) {
+            OrderResponse pendingOrder = checkoutPipeline.submit(userId);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/" + pendingOrder.getId()))
+                    .body(pendingOrder);
+        }
         OrderResponse orderResponse = orderService.createService(userId);
         return new ResponseEntity<>(orderResponse, HttpStatus.CREATED);
     }
-}
 
+    @GetMapping
+    public ResponseEntity<OrderPage> getOrders(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(orderService.getOrders(userId, cursor, limit));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderResponse> getOrder(@RequestHeader("X-User-ID") String userId, @PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrder(userId, id));
+    }
+}
@@ -1,12 +0,0 @@
-package com.ecommerce.order.dto;
-
-import lombok.Data;
-
-@Data
-public class AddressDto {
-    private String street;
-    private String city;
-    private String state;
-    private String country;
-    private String zipcode;
-}
@@ -0,0 +1,7 @@
+package com.ecommerce.order.dto;
+
+import java.time.LocalDateTime;
+
+//Position of an order in a user's history, newest first
+public record OrderKey(Long id, LocalDateTime createdAt) {
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderPage {
+    private List<OrderResponse> items;
+    private String nextCursor;
+}
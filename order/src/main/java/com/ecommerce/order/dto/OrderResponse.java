@@ -2,6 +2,7 @@ package com.ecommerce.order.dto;
 
 
 import com.ecommerce.order.model.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -17,4 +18,6 @@ public class OrderResponse {
     private OrderStatus status;
     private List<OrderItemDTO> items;
     private LocalDateTime createAt;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String failureReason;
 }
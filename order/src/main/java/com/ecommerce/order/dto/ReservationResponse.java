@@ -0,0 +1,12 @@
+package com.ecommerce.order.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ReservationResponse {
+    private String id;
+    private String status;
+    private LocalDateTime expiresAt;
+}
@@ -1,14 +0,0 @@
-package com.ecommerce.order.dto;
-
-import lombok.Data;
-
-@Data
-public class UserResponse {
-    private String id;
-    private String firstName;
-    private String lastName;
-    private String email;
-    private String phone;
-    private UserRole role;
-    private AddressDto address;
-}
@@ -1,6 +0,0 @@
-package com.ecommerce.order.dto;
-
-public enum UserRole {
-    CUSTOMER,
-    ADMIN
-}
@@ -0,0 +1,15 @@
+package com.ecommerce.order.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class OrderCancelledEvent {
+    private Long orderId;
+    private String userId;
+    private String reason;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.order.event;
+
+import com.ecommerce.order.dto.OrderItemDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderCreatedEvent {
+    private Long orderId;
+    private String userId;
+    private BigDecimal totalAmount;
+    private List<OrderItemDTO> items;
+    private LocalDateTime occurredAt;
+}
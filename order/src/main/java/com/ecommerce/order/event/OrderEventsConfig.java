@@ -0,0 +1,15 @@
+package com.ecommerce.order.event;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OrderEventsConfig {
+
+    @Bean
+    public TopicExchange orderEventsExchange(@Value("${app.outbox.exchange:order.events}") String exchange) {
+        return new TopicExchange(exchange, true, false);
+    }
+}
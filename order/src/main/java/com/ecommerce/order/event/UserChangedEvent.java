@@ -0,0 +1,13 @@
+package com.ecommerce.order.event;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserChangedEvent extends RemoteApplicationEvent {
+    private String userId;
+}
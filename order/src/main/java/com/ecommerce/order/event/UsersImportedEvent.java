@@ -0,0 +1,15 @@
+package com.ecommerce.order.event;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class UsersImportedEvent extends RemoteApplicationEvent {
+    private List<String> userIds;
+}
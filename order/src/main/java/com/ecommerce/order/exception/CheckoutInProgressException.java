@@ -0,0 +1,7 @@
+package com.ecommerce.order.exception;
+
+public class CheckoutInProgressException extends RuntimeException {
+    public CheckoutInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.order.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -9,6 +9,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+//Unique (user_id, product_id) index is created in schema.sql, after duplicate rows are merged
 @Entity
 @Table(name = "cart_item")
 @Getter
@@ -16,7 +17,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class CartItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_seq")
+    //One id per nextval: the add-to-cart upsert draws ids from the same sequence in plain SQL
+    @SequenceGenerator(name = "cart_item_seq", sequenceName = "cart_item_seq", allocationSize = 1)
     private Long id;
     private String userId;
     private String productId;
@@ -0,0 +1,33 @@
+package com.ecommerce.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity(name = "idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    //0 while the first request is still running
+    private int status;
+
+    @Column(columnDefinition = "text")
+    private String body;
+
+    private String location;
+
+    //SHA-256 of the request body the key was first used with
+    private String requestHash;
+
+    private LocalDateTime createdAt;
+}
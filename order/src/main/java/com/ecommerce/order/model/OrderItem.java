@@ -15,7 +15,8 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
 
     private String productId;
@@ -23,7 +24,23 @@ public class OrderItem {
     private Integer quantity;
     private BigDecimal price;
 
+    //price * quantity, fixed when the line is priced so reads never recompute it
+    @Convert(converter = MoneyConverter.class)
+    private Money lineTotal;
+
     @ManyToOne
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
+
+    public OrderItem(String productId, Integer quantity, BigDecimal price, Order order) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.order = order;
+        applyPrice(price);
+    }
+
+    public void applyPrice(BigDecimal price) {
+        this.price = price;
+        this.lineTotal = Money.of(price).times(quantity);
+    }
 }
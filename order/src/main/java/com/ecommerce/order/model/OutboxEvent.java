@@ -0,0 +1,31 @@
+package com.ecommerce.order.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity(name = "outbox_events")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    private String aggregateType;
+    private String aggregateId;
+    private String eventType;
+
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    private LocalDateTime publishedAt;
+}
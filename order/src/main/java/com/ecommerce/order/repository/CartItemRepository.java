@@ -3,14 +3,44 @@ package com.ecommerce.order.repository;
 
 import com.ecommerce.order.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     CartItem findByUserIdAndProductId(String userId, String productId);
-    void deleteByUserIdAndProductId(String userId, String productId);
     List<CartItem> findByUserId(String userId);
-    void deleteByUserId(String userId);
+
+    //Relies on the unique (user_id, product_id) index from schema.sql; adds to the quantity of an existing row
+    @Modifying
+    @Query(value = "INSERT INTO cart_item (id, user_id, product_id, quantity, price, created_at, updated_at) " +
+            "VALUES (nextval('cart_item_seq'), :userId, :productId, :quantity, :price, now(), now()) " +
+            "ON CONFLICT (user_id, product_id) DO UPDATE SET quantity = cart_item.quantity + EXCLUDED.quantity, " +
+            "price = EXCLUDED.price, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int upsertItem(@Param("userId") String userId, @Param("productId") String productId,
+                   @Param("quantity") int quantity, @Param("price") BigDecimal price);
+
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.userId = :userId AND c.productId = :productId")
+    int deleteByUserIdAndProductId(@Param("userId") String userId, @Param("productId") String productId);
+
+    //Takes the ordered quantities off every line in one round trip: lines with more left are decremented, the
+    //rest deleted. Both parts read the same snapshot, so each row is touched by exactly one of them
+    @Modifying
+    @Query(value = "WITH ordered AS (SELECT * FROM unnest(CAST(:productIds AS text[]), CAST(:quantities AS int[])) AS o(product_id, quantity)), " +
+            "decremented AS (UPDATE cart_item c SET quantity = c.quantity - o.quantity, updated_at = now() FROM ordered o " +
+            "WHERE c.user_id = :userId AND c.product_id = o.product_id AND c.quantity > o.quantity) " +
+            "DELETE FROM cart_item c USING ordered o " +
+            "WHERE c.user_id = :userId AND c.product_id = o.product_id AND c.quantity <= o.quantity", nativeQuery = true)
+    int removeQuantities(@Param("userId") String userId, @Param("productIds") String[] productIds,
+                         @Param("quantities") Integer[] quantities);
+
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
 }
@@ -0,0 +1,36 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.CartItem;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where carts live. {@link JpaCartStore} writes straight to the cart_item table;
+ * {@link InMemoryCartStore} keeps carts in memory and snapshots them to it.
+ * Selected with {@code app.cart.store.type} ({@code jpa} or {@code memory}).
+ */
+public interface CartStore {
+
+    /** Adds each line's quantity to the cart and takes its price as the current one. */
+    void addItems(String userId, List<CartLine> lines);
+
+    void replaceCart(String userId, List<CartLine> lines);
+
+    /** @return false when the cart held no item for the product */
+    boolean removeItem(String userId, String productId);
+
+    void clearCart(String userId);
+
+    /**
+     * Takes ordered quantities (product id to quantity) out of the cart, dropping lines
+     * that reach zero. Items added after checkout read the cart are kept.
+     */
+    void removeOrderedItems(String userId, Map<String, Integer> quantities);
+
+    List<CartItem> findByUserId(String userId);
+
+    record CartLine(String productId, int quantity, BigDecimal price) {
+    }
+}
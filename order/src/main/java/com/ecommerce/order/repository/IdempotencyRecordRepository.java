@@ -0,0 +1,34 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    //Inserts an in-progress row, or takes over one whose response has outlived the window or whose
+    //claim has outlived its lease (the instance running it died); 0 means someone else holds it
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, status, request_hash, created_at) " +
+            "VALUES (:key, 0, :requestHash, :now) " +
+            "ON CONFLICT (idempotency_key) DO UPDATE SET status = 0, body = NULL, location = NULL, " +
+            "request_hash = EXCLUDED.request_hash, created_at = EXCLUDED.created_at " +
+            "WHERE idempotency_keys.created_at < :expiredBefore " +
+            "OR (idempotency_keys.status = 0 AND idempotency_keys.created_at < :leaseExpiredBefore)", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("requestHash") String requestHash, @Param("now") LocalDateTime now,
+              @Param("expiredBefore") LocalDateTime expiredBefore, @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_keys r WHERE r.key = :key AND r.status = 0")
+    int deleteClaim(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_keys r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.order.repository;
+
+import java.util.Optional;
+
+/**
+ * Remembers the responses of requests sent with an Idempotency-Key for a
+ * limited window. Selected with {@code app.idempotency.store} ({@code memory}
+ * or {@code jpa}).
+ */
+public interface IdempotencyStore {
+
+    /** @return the completed response for the key, if any */
+    Optional<StoredResponse> find(String key);
+
+    /**
+     * Marks the key as in progress for the request with the given hash.
+     *
+     * @return empty when the caller now holds the key, otherwise the request hash
+     *         of whoever is already executing it
+     */
+    Optional<String> claim(String key, String requestHash);
+
+    void complete(String key, StoredResponse response);
+
+    /** Gives up a claim whose request failed, so a retry can run it again. */
+    void release(String key);
+
+    record StoredResponse(int status, String body, String location, String requestHash) {
+    }
+}
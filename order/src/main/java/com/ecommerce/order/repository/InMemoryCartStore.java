@@ -0,0 +1,480 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.CartItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Keeps carts in memory and makes every change durable in a local write-ahead log
+ * before acknowledging it. A scheduled snapshot copies changed carts to cart_item,
+ * after which the log segments it covered are deleted.
+ *
+ * <p>Each log entry holds the user's whole cart after the change, so replaying
+ * is idempotent: the last entry for a user wins. Carts are per instance; the
+ * gateway pins each user to one order-service instance (UserAffinityLoadBalancer),
+ * so replicas never snapshot the same user's cart. When an instance leaves, its
+ * users move and see their cart as of its last snapshot.
+ *
+ * <p>Changes to one cart are serialized on that cart only. Log entries are queued
+ * in that order and written by a single writer thread, which appends and fsyncs
+ * whole batches at once; a change returns once its batch is on disk. With
+ * {@code wal-fsync=false} it returns once the batch is in the OS page cache, which
+ * survives a process crash but not an OS crash or power loss.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cart.store.type", havingValue = "memory")
+public class InMemoryCartStore implements CartStore, DisposableBean {
+
+    private static final String WAL_FILE = "cart.wal";
+    private static final String SEGMENT_PREFIX = "cart.wal.";
+    private static final int MAX_WAL_BATCH = 1000;
+    private static final WalWrite STOP_WRITER = new WalWrite(new byte[0], new CompletableFuture<>());
+
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final Path walDirectory;
+    private final boolean fsync;
+    private final int snapshotBatchSize;
+    private final Duration idleEviction;
+
+    private final ConcurrentHashMap<String, UserCart> carts = new ConcurrentHashMap<>();
+    private final Set<String> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<WalWrite> walQueue = new LinkedBlockingQueue<>();
+    //Held by the writer for one batch at a time, and by rotation
+    private final Object walLock = new Object();
+    //The scheduled snapshot and the one in destroy() must not rotate and persist at the same time
+    private final Object snapshotLock = new Object();
+    private final Thread walWriter;
+    private volatile boolean closed;
+    private FileChannel wal;
+    //Segments are numbered, not timestamped: names never collide and sort in rotation order
+    private long nextSegment;
+
+    public InMemoryCartStore(
+            CartItemRepository cartItemRepository,
+            TransactionTemplate transactionTemplate,
+            JsonMapper jsonMapper,
+            @Value("${app.cart.store.wal-directory:data/cart-wal}") Path walDirectory,
+            @Value("${app.cart.store.wal-fsync:true}") boolean fsync,
+            @Value("${app.cart.store.snapshot-batch-size:500}") int snapshotBatchSize,
+            @Value("${app.cart.store.idle-eviction:30m}") Duration idleEviction) throws IOException {
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.walDirectory = walDirectory;
+        this.fsync = fsync;
+        this.snapshotBatchSize = snapshotBatchSize;
+        this.idleEviction = idleEviction;
+
+        Files.createDirectories(walDirectory);
+        recover();
+        this.wal = openWal();
+        this.walWriter = new Thread(this::writeWalBatches, "cart-wal-writer");
+        this.walWriter.setDaemon(true);
+        this.walWriter.start();
+    }
+
+    @Override
+    public void addItems(String userId, List<CartLine> lines) {
+        update(userId, current -> {
+            Map<String, CartLine> next = new LinkedHashMap<>(current);
+            for (CartLine line : lines) {
+                CartLine existing = next.get(line.productId());
+                int quantity = existing != null ? existing.quantity() + line.quantity() : line.quantity();
+                next.put(line.productId(), new CartLine(line.productId(), quantity, line.price()));
+            }
+            return next;
+        });
+    }
+
+    @Override
+    public void replaceCart(String userId, List<CartLine> lines) {
+        update(userId, current -> {
+            Map<String, CartLine> next = new LinkedHashMap<>();
+            lines.forEach(line -> next.put(line.productId(), line));
+            return next;
+        });
+    }
+
+    @Override
+    public boolean removeItem(String userId, String productId) {
+        AtomicBoolean removed = new AtomicBoolean();
+        update(userId, current -> {
+            if(!current.containsKey(productId)) {
+                return current;
+            }
+            removed.set(true);
+            Map<String, CartLine> next = new LinkedHashMap<>(current);
+            next.remove(productId);
+            return next;
+        });
+        return removed.get();
+    }
+
+    @Override
+    public void clearCart(String userId) {
+        afterCommit(() -> update(userId, current -> Map.of()));
+    }
+
+    @Override
+    public void removeOrderedItems(String userId, Map<String, Integer> quantities) {
+        afterCommit(() -> update(userId, current -> {
+            Map<String, CartLine> next = new LinkedHashMap<>(current);
+            quantities.forEach((productId, quantity) -> next.computeIfPresent(productId, (id, line) ->
+                    line.quantity() > quantity ? new CartLine(id, line.quantity() - quantity, line.price()) : null));
+            return next;
+        }));
+    }
+
+    @Override
+    public List<CartItem> findByUserId(String userId) {
+        return cart(userId).state.lines().values().stream()
+                .map(line -> toCartItem(userId, line))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.store.snapshot-interval-ms:5000}")
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            snapshotDirtyCarts();
+        }
+    }
+
+    private void snapshotDirtyCarts() {
+        if(dirtyUsers.isEmpty()) {
+            evictIdleCarts();
+            return;
+        }
+
+        //Changes from here on go to a fresh segment; every user in the old ones is dirty
+        List<Path> coveredSegments = rotateWal();
+        List<String> users = new ArrayList<>(dirtyUsers);
+        users.forEach(dirtyUsers::remove);
+
+        try {
+            for (int from = 0; from < users.size(); from += snapshotBatchSize) {
+                persist(users.subList(from, Math.min(from + snapshotBatchSize, users.size())));
+            }
+        } catch (RuntimeException e) {
+            //Segments are kept, so a crash before the next snapshot still replays these carts
+            dirtyUsers.addAll(users);
+            log.error("Cart snapshot failed for {} users, will retry", users.size(), e);
+            return;
+        }
+
+        for (Path segment : coveredSegments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("Failed to delete cart WAL segment {}", segment, e);
+            }
+        }
+        evictIdleCarts();
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        snapshot();
+        closed = true;
+        //Not an interrupt: that would close the FileChannel under a write in progress
+        walQueue.add(STOP_WRITER);
+        walWriter.join(5000);
+        synchronized (walLock) {
+            wal.close();
+        }
+    }
+
+    //Checkout changes the cart inside the order transaction; only apply it once that commits
+    private void afterCommit(Runnable change) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+            return;
+        }
+        change.run();
+    }
+
+    private UserCart cart(String userId) {
+        UserCart cart = carts.get(userId);
+        if(cart != null) {
+            return cart;
+        }
+        //Loaded outside any map lock, so a cold read never blocks other users
+        UserCart loaded = new UserCart(load(userId));
+        UserCart raced = carts.putIfAbsent(userId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private void update(String userId, UnaryOperator<Map<String, CartLine>> change) {
+        CompletableFuture<Void> durable = null;
+        while (durable == null) {
+            UserCart cart = cart(userId);
+            synchronized (cart) {
+                if(cart.evicted) {
+                    //Evicted between lookup and lock; load it again
+                    continue;
+                }
+                Map<String, CartLine> lines = change.apply(cart.state.lines());
+                if(lines == cart.state.lines()) {
+                    return;
+                }
+                CartState next = new CartState(Collections.unmodifiableMap(lines), System.currentTimeMillis());
+                cart.state = next;
+                //Mark dirty before logging so a concurrent snapshot can never miss a logged change;
+                //queueing under the cart lock keeps each user's entries in change order
+                dirtyUsers.add(userId);
+                durable = appendToWal(userId, next);
+            }
+        }
+        //Wait for the batch outside the cart lock, so the cart stays writable meanwhile
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            //The change stays in memory and dirty, so the next snapshot still persists it
+            throw new UncheckedIOException("Failed to append to cart WAL",
+                    e.getCause() instanceof IOException io ? io : new IOException(e.getCause()));
+        }
+    }
+
+    private void persist(List<String> users) {
+        Map<String, CartState> states = new LinkedHashMap<>();
+        for (String userId : users) {
+            UserCart cart = carts.get(userId);
+            if(cart != null) {
+                states.put(userId, cart.state);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> states.forEach((userId, state) -> {
+            cartItemRepository.deleteByUserId(userId);
+            cartItemRepository.saveAll(state.lines().values().stream()
+                    .map(line -> toCartItem(userId, line))
+                    .toList());
+        }));
+    }
+
+    private void evictIdleCarts() {
+        long idleBefore = System.currentTimeMillis() - idleEviction.toMillis();
+        carts.forEach((userId, cart) -> {
+            synchronized (cart) {
+                if(cart.state.touchedAt() < idleBefore && !dirtyUsers.contains(userId)) {
+                    cart.evicted = true;
+                    carts.remove(userId, cart);
+                }
+            }
+        });
+    }
+
+    private CartState load(String userId) {
+        Map<String, CartLine> lines = new LinkedHashMap<>();
+        for (CartItem item : cartItemRepository.findByUserId(userId)) {
+            lines.put(item.getProductId(), new CartLine(item.getProductId(), item.getQuantity(), item.getPrice()));
+        }
+        return new CartState(Collections.unmodifiableMap(lines), System.currentTimeMillis());
+    }
+
+    private CompletableFuture<Void> appendToWal(String userId, CartState state) {
+        byte[] entry = jsonMapper.writeValueAsBytes(new WalEntry(userId, List.copyOf(state.lines().values())));
+        WalWrite write = new WalWrite(entry, new CompletableFuture<>());
+        if(closed) {
+            write.done().completeExceptionally(new IOException("Cart WAL is closed"));
+            return write.done();
+        }
+        walQueue.add(write);
+        return write.done();
+    }
+
+    //Group commit: one write and at most one fsync for everything queued since the last batch
+    private void writeWalBatches() {
+        List<WalWrite> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(walQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            walQueue.drainTo(batch, MAX_WAL_BATCH - batch.size());
+            stopping = batch.remove(STOP_WRITER);
+
+            int size = batch.stream().mapToInt(write -> write.entry().length + 1).sum();
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            batch.forEach(write -> buffer.put(write.entry()).put((byte) '\n'));
+            buffer.flip();
+            try {
+                synchronized (walLock) {
+                    reopenWalIfClosed();
+                    while (buffer.hasRemaining()) {
+                        wal.write(buffer);
+                    }
+                    if(fsync) {
+                        wal.force(false);
+                    }
+                }
+                batch.forEach(write -> write.done().complete(null));
+            } catch (IOException e) {
+                log.error("Failed to append {} entries to cart WAL", batch.size(), e);
+                batch.forEach(write -> write.done().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+
+        //Raced with shutdown: nothing will write these, so do not leave their callers waiting
+        WalWrite orphan;
+        while ((orphan = walQueue.poll()) != null) {
+            orphan.done().completeExceptionally(new IOException("Cart WAL is closed"));
+        }
+    }
+
+    private List<Path> rotateWal() {
+        synchronized (walLock) {
+            try {
+                wal.force(false);
+                wal.close();
+                Path segment = walDirectory.resolve(SEGMENT_PREFIX + String.format("%019d", nextSegment));
+                Files.move(walDirectory.resolve(WAL_FILE), segment);
+                nextSegment++;
+                return segments();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to rotate cart WAL", e);
+            } finally {
+                //Also after a failed move: later changes keep appending to the current file
+                try {
+                    reopenWalIfClosed();
+                } catch (IOException e) {
+                    log.error("Failed to reopen cart WAL, the writer will retry", e);
+                }
+            }
+        }
+    }
+
+    private void reopenWalIfClosed() throws IOException {
+        if(!wal.isOpen()) {
+            wal = openWal();
+        }
+    }
+
+    private FileChannel openWal() throws IOException {
+        return FileChannel.open(walDirectory.resolve(WAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> logs = new ArrayList<>(segments());
+        for (Path segment : logs) {
+            nextSegment = Math.max(nextSegment, segmentNumber(segment) + 1);
+        }
+        Path current = walDirectory.resolve(WAL_FILE);
+        if(Files.exists(current)) {
+            logs.add(current);
+        }
+
+        long entries = 0;
+        for (Path logFile : logs) {
+            try (Stream<String> lines = Files.lines(logFile, StandardCharsets.UTF_8)) {
+                for (String line : (Iterable<String>) lines::iterator) {
+                    if(line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        WalEntry entry = jsonMapper.readValue(line, WalEntry.class);
+                        Map<String, CartLine> cart = new LinkedHashMap<>();
+                        entry.lines().forEach(cartLine -> cart.put(cartLine.productId(), cartLine));
+                        carts.put(entry.userId(), new UserCart(new CartState(Collections.unmodifiableMap(cart), System.currentTimeMillis())));
+                        dirtyUsers.add(entry.userId());
+                        entries++;
+                    } catch (JacksonException e) {
+                        //A torn final write from a crash; everything before it is intact
+                        log.warn("Skipping unreadable cart WAL entry in {}", logFile);
+                    }
+                }
+            }
+        }
+        if(entries > 0) {
+            log.info("Recovered {} cart WAL entries for {} users", entries, dirtyUsers.size());
+        }
+    }
+
+    private long segmentNumber(Path segment) {
+        try {
+            return Long.parseLong(segment.getFileName().toString().substring(SEGMENT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private CartItem toCartItem(String userId, CartLine line) {
+        CartItem cartItem = new CartItem();
+        cartItem.setUserId(userId);
+        cartItem.setProductId(line.productId());
+        cartItem.setQuantity(line.quantity());
+        cartItem.setPrice(line.price());
+        return cartItem;
+    }
+
+    //One per cached user; its monitor serializes that user's changes
+    private static class UserCart {
+        private volatile CartState state;
+        private boolean evicted;
+
+        UserCart(CartState state) {
+            this.state = state;
+        }
+    }
+
+    private record CartState(Map<String, CartLine> lines, long touchedAt) {
+    }
+
+    private record WalEntry(String userId, List<CartLine> lines) {
+    }
+
+    private record WalWrite(byte[] entry, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.order.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, StoredResponse> responses;
+
+    public InMemoryIdempotencyStore(
+            @Value("${app.idempotency.window:24h}") Duration window,
+            @Value("${app.idempotency.maximum-size:100000}") long maximumSize) {
+        this.responses = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Override
+    public Optional<StoredResponse> find(String key) {
+        return Optional.ofNullable(responses.getIfPresent(key));
+    }
+
+    @Override
+    public Optional<String> claim(String key, String requestHash) {
+        //Single instance: concurrent duplicates are already coalesced in memory
+        return Optional.empty();
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        responses.put(key, response);
+    }
+
+    @Override
+    public void release(String key) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.CartItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "app.cart.store.type", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaCartStore implements CartStore {
+
+    private final CartItemRepository cartItemRepository;
+
+    @Override
+    @Transactional
+    public void addItems(String userId, List<CartLine> lines) {
+        //One upsert per product: no read first, and concurrent adds for the same product cannot create duplicate rows.
+        //Sorted so two multi-item adds for the same user lock the rows in the same order
+        lines.stream()
+                .sorted(Comparator.comparing(CartLine::productId))
+                .forEach(line -> cartItemRepository.upsertItem(userId, line.productId(), line.quantity(), line.price()));
+    }
+
+    @Override
+    @Transactional
+    public void replaceCart(String userId, List<CartLine> lines) {
+        cartItemRepository.deleteByUserId(userId);
+        cartItemRepository.saveAll(lines.stream()
+                .map(line -> {
+                    CartItem cartItem = newCartItem(userId, line.productId());
+                    cartItem.setQuantity(line.quantity());
+                    cartItem.setPrice(line.price());
+                    return cartItem;
+                })
+                .toList());
+    }
+
+    @Override
+    @Transactional
+    public boolean removeItem(String userId, String productId) {
+        return cartItemRepository.deleteByUserIdAndProductId(userId, productId) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void clearCart(String userId) {
+        cartItemRepository.deleteByUserId(userId);
+    }
+
+    @Override
+    @Transactional
+    public void removeOrderedItems(String userId, Map<String, Integer> quantities) {
+        //Decrement rather than delete, so quantities added since checkout read the cart survive
+        if(quantities.isEmpty()) {
+            return;
+        }
+        String[] productIds = quantities.keySet().toArray(String[]::new);
+        Integer[] ordered = quantities.values().toArray(Integer[]::new);
+        cartItemRepository.removeQuantities(userId, productIds, ordered);
+    }
+
+    @Override
+    public List<CartItem> findByUserId(String userId) {
+        return cartItemRepository.findByUserId(userId);
+    }
+
+    private CartItem newCartItem(String userId, String productId) {
+        CartItem cartItem = new CartItem();
+        cartItem.setUserId(userId);
+        cartItem.setProductId(productId);
+        cartItem.setQuantity(0);
+        return cartItem;
+    }
+}
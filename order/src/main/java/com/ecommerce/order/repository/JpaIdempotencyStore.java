@@ -0,0 +1,71 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.IdempotencyRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "jpa")
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Duration window;
+    private final Duration lease;
+
+    public JpaIdempotencyStore(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            @Value("${app.idempotency.window:24h}") Duration window,
+            @Value("${app.idempotency.lease:30s}") Duration lease) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.window = window;
+        this.lease = lease;
+    }
+
+    @Override
+    public Optional<StoredResponse> find(String key) {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(window);
+        return idempotencyRecordRepository.findById(key)
+                .filter(record -> record.getStatus() > 0 && record.getCreatedAt().isAfter(expiredBefore))
+                .map(record -> new StoredResponse(
+                        record.getStatus(), record.getBody(), record.getLocation(), record.getRequestHash()));
+    }
+
+    @Override
+    @Transactional
+    public Optional<String> claim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        if(idempotencyRecordRepository.claim(key, requestHash, now, now.minus(window), now.minus(lease)) > 0) {
+            return Optional.empty();
+        }
+        //Held elsewhere; if the row vanished meanwhile, report it as held by the same request so the caller retries
+        return Optional.of(idempotencyRecordRepository.findById(key)
+                .map(IdempotencyRecord::getRequestHash)
+                .orElse(requestHash));
+    }
+
+    @Override
+    @Transactional
+    public void complete(String key, StoredResponse response) {
+        idempotencyRecordRepository.save(new IdempotencyRecord(key, response.status(), response.body(),
+                response.location(), response.requestHash(), LocalDateTime.now()));
+    }
+
+    @Override
+    @Transactional
+    public void release(String key) {
+        idempotencyRecordRepository.deleteClaim(key);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(window));
+    }
+}
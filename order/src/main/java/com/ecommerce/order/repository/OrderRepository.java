@@ -1,11 +1,67 @@
 package com.ecommerce.order.repository;
 
 
+import com.ecommerce.order.dto.OrderKey;
 import com.ecommerce.order.model.Order;
+import com.ecommerce.order.model.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    
+
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM orders o WHERE o.id = :id")
+    Optional<Order> findForUpdateById(@Param("id") Long id);
+
+    @Query("SELECT o.id FROM orders o WHERE o.status = :status AND o.createdAt < :createdBefore ORDER BY o.createdAt")
+    List<Long> findIdsByStatusAndCreatedAtBefore(@Param("status") OrderStatus status,
+                                                 @Param("createdBefore") LocalDateTime createdBefore,
+                                                 Limit limit);
+
+    @Query("SELECT o.id FROM orders o WHERE o.status = :status AND o.updatedAt < :updatedBefore ORDER BY o.updatedAt")
+    List<Long> findIdsByStatusAndUpdatedAtBefore(@Param("status") OrderStatus status,
+                                                 @Param("updatedBefore") LocalDateTime updatedBefore,
+                                                 Limit limit);
+
+    @Query("SELECT o.id FROM orders o WHERE o.status = :status AND o.reservationConfirmed = false " +
+            "AND o.updatedAt < :updatedBefore ORDER BY o.updatedAt")
+    List<Long> findIdsWithUnconfirmedReservation(@Param("status") OrderStatus status,
+                                                 @Param("updatedBefore") LocalDateTime updatedBefore,
+                                                 Limit limit);
+
+    @Modifying
+    @Query("UPDATE orders o SET o.reservationConfirmed = true WHERE o.id = :id AND o.reservationConfirmed = false")
+    int markReservationConfirmed(@Param("id") Long id);
+
+    //Keyset paging over idx_orders_user_created; only ids and sort keys are read here
+    @Query("SELECT new com.ecommerce.order.dto.OrderKey(o.id, o.createdAt) FROM orders o " +
+            "WHERE o.userId = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderKey> findLatestOrderKeys(@Param("userId") String userId, Limit limit);
+
+    @Query("SELECT new com.ecommerce.order.dto.OrderKey(o.id, o.createdAt) FROM orders o " +
+            "WHERE o.userId = :userId AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderKey> findOrderKeysBefore(@Param("userId") String userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Limit limit);
+
+    @Query("SELECT DISTINCT o FROM orders o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
 }
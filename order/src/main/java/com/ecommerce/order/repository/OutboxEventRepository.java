@@ -0,0 +1,31 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    //SKIP LOCKED lets several relay instances drain the outbox without blocking each other
+    @Query(
+            value = "SELECT * FROM outbox_events WHERE published_at IS NULL " +
+                    "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true
+    )
+    List<OutboxEvent> lockUnpublished(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE outbox_events e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") List<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("DELETE FROM outbox_events e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,22 +1,24 @@
 package com.ecommerce.order.service;
 
-import com.ecommerce.order.clients.ProductServiceClient;
-import com.ecommerce.order.clients.UserServiceClient;
+import com.ecommerce.order.cache.ProductDetailsCache;
+import com.ecommerce.order.cache.UserExistenceCache;
+import com.ecommerce.order.clients.RemoteCallExecutor;
 import com.ecommerce.order.dto.CartItemRequest;
 import com.ecommerce.order.dto.ProductResponse;
-import com.ecommerce.order.dto.UserResponse;
 import com.ecommerce.order.exception.CartItemNotFoundException;
 import com.ecommerce.order.exception.OutOfStockException;
 import com.ecommerce.order.exception.ProductNotFoundException;
 import com.ecommerce.order.exception.UserNotFoundException;
 import com.ecommerce.order.model.CartItem;
-import com.ecommerce.order.repository.CartItemRepository;
+import com.ecommerce.order.repository.CartStore;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 
@@ -24,21 +26,23 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartItemRepository cartItemRepository;
-    private final UserServiceClient userServiceClient;
-    private final ProductServiceClient productServiceClient;
+    private final CartStore cartStore;
+    private final UserExistenceCache userExistenceCache;
+    private final ProductDetailsCache productDetailsCache;
+    private final RemoteCallExecutor remoteCallExecutor;
 
 
     public void addToCart(String userId, CartItemRequest request) {
-        //Look for product
-        ProductResponse productResponse;
-        
-        try {
-            productResponse = productServiceClient.getProductDetails(request.getProductId());
-        } catch (Exception e) {
-            throw new ProductNotFoundException("Product not found with ID: " + request.getProductId());
-        }
-       
+        validateRequest(request);
+        //Look up product and user concurrently
+        CompletableFuture<ProductResponse> productLookup =
+                remoteCallExecutor.submit(() -> productDetailsCache.getProduct(request.getProductId()));
+        CompletableFuture<Boolean> userLookup =
+                remoteCallExecutor.submit(() -> userExistenceCache.exists(userId));
+
+        ProductResponse productResponse = RemoteCallExecutor.await(productLookup,
+                () -> new ProductNotFoundException("Product not found with ID: " + request.getProductId()));
+
         if(productResponse == null) {
              throw new ProductNotFoundException("Product not found with ID: " + request.getProductId());
         }
@@ -46,54 +50,116 @@ public class CartService {
         if(productResponse.getStockQuantity() < request.getQuantity()) {
             throw new OutOfStockException("Product " + productResponse.getName() + " is out of stock or insufficient quantity.");
         }
-        
-        UserResponse userResponse;
 
-        try {
-            userResponse = userServiceClient.getUserDetails(userId);
-        } catch (Exception e) {
-            throw new UserNotFoundException("User not found with ID: " + userId);
-        }
-        
-        if(userResponse == null) {
+        boolean userExists = RemoteCallExecutor.await(userLookup,
+                () -> new UserNotFoundException("User not found with ID: " + userId));
+
+        if(!userExists) {
             throw new UserNotFoundException("User not found with ID: " + userId);
         }
 
-        CartItem existingCartItem = cartItemRepository.findByUserIdAndProductId(userId, request.getProductId());
-        if(existingCartItem != null) {
-            //Update the quantity
-            existingCartItem.setQuantity(existingCartItem.getQuantity() + request.getQuantity());
-            existingCartItem.setPrice(productResponse.getPrice());
-            cartItemRepository.save(existingCartItem);
-        } else {
-            //Create new cart item
-            CartItem cartItem = new CartItem();
-            cartItem.setUserId(userId);
-            cartItem.setProductId(request.getProductId());
-            cartItem.setQuantity(request.getQuantity());
-            cartItem.setPrice(productResponse.getPrice());
-            cartItemRepository.save(cartItem);
-       }
+        cartStore.addItems(userId, List.of(
+                new CartStore.CartLine(request.getProductId(), request.getQuantity(), productResponse.getPrice())));
     }
 
 
     
+    public void addItemsToCart(String userId, List<CartItemRequest> requests) {
+        Map<String, Integer> quantities = mergeQuantities(requests);
+        if(quantities.isEmpty()) {
+            return;
+        }
+        Map<String, ProductResponse> products = validateItems(userId, quantities);
+
+        cartStore.addItems(userId, toCartLines(quantities, products));
+    }
+
+    public void replaceCart(String userId, List<CartItemRequest> requests) {
+        Map<String, Integer> quantities = mergeQuantities(requests);
+        Map<String, ProductResponse> products = quantities.isEmpty() ? Map.of() : validateItems(userId, quantities);
+
+        cartStore.replaceCart(userId, toCartLines(quantities, products));
+    }
+
     public void deleteItemFromCart(String userId, String productId) {
-       CartItem cartItem = cartItemRepository.findByUserIdAndProductId(userId, productId);
-        if(cartItem != null){
-            cartItemRepository.delete(cartItem);
-        } else {
+        if(!cartStore.removeItem(userId, productId)) {
             throw new CartItemNotFoundException("Cart item not found for product ID: " + productId);
         }
     }
 
-    
     public void clearCart(String userId) {
-        List<CartItem> cartItems = cartItemRepository.findByUserId(userId);
-        cartItemRepository.deleteAll(cartItems);
+        cartStore.clearCart(userId);
+    }
+
+    public void removeOrderedItems(String userId, Map<String, Integer> quantities) {
+        cartStore.removeOrderedItems(userId, quantities);
+    }
+
+    public void addBackToCart(String userId, List<CartStore.CartLine> lines) {
+        cartStore.addItems(userId, lines);
     }
 
     public List<CartItem> getCart(String userId) {
-       return cartItemRepository.findByUserId(userId);
+       return cartStore.findByUserId(userId);
+    }
+
+    private Map<String, ProductResponse> validateItems(String userId, Map<String, Integer> quantities) {
+        CompletableFuture<Map<String, ProductResponse>> productLookup =
+                remoteCallExecutor.submit(() -> productDetailsCache.getProducts(quantities.keySet()));
+        CompletableFuture<Boolean> userLookup =
+                remoteCallExecutor.submit(() -> userExistenceCache.exists(userId));
+
+        Map<String, ProductResponse> products = RemoteCallExecutor.await(productLookup,
+                () -> new ProductNotFoundException("Products not found with IDs: " + quantities.keySet()));
+
+        quantities.forEach((productId, quantity) -> {
+            ProductResponse productResponse = products.get(productId);
+            if(productResponse == null) {
+                throw new ProductNotFoundException("Product not found with ID: " + productId);
+            }
+            if(productResponse.getStockQuantity() < quantity) {
+                throw new OutOfStockException("Product " + productResponse.getName() + " is out of stock or insufficient quantity.");
+            }
+        });
+
+        boolean userExists = RemoteCallExecutor.await(userLookup,
+                () -> new UserNotFoundException("User not found with ID: " + userId));
+        if(!userExists) {
+            throw new UserNotFoundException("User not found with ID: " + userId);
+        }
+        return products;
+    }
+
+    private Map<String, Integer> mergeQuantities(List<CartItemRequest> requests) {
+        if(requests == null) {
+            throw new IllegalArgumentException("Cart items are required");
+        }
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemRequest request : requests) {
+            validateRequest(request);
+            try {
+                quantities.merge(request.getProductId(), request.getQuantity(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Quantity too large for product ID: " + request.getProductId());
+            }
+        }
+        return quantities;
+    }
+
+    //Rejected here as 400s; left through, they surface as NPEs or as product-service rejecting the checkout
+    private void validateRequest(CartItemRequest request) {
+        if(request == null || request.getProductId() == null || request.getProductId().isBlank()) {
+            throw new IllegalArgumentException("productId is required");
+        }
+        if(request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("quantity must be positive for product ID: " + request.getProductId());
+        }
+    }
+
+    private List<CartStore.CartLine> toCartLines(Map<String, Integer> quantities, Map<String, ProductResponse> products) {
+        return quantities.entrySet()
+                .stream()
+                .map(entry -> new CartStore.CartLine(entry.getKey(), entry.getValue(), products.get(entry.getKey()).getPrice()))
+                .toList();
     }
 }
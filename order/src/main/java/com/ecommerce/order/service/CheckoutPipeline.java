@@ -0,0 +1,133 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous checkout: orders are accepted as PENDING and settled by a fixed
+ * pool of workers. At most {@code max-pending} orders are queued or in progress;
+ * beyond that new checkouts are refused with 503 instead of piling up.
+ */
+@Service
+@Slf4j
+public class CheckoutPipeline implements DisposableBean {
+
+    private static final int EXPIRY_BATCH_SIZE = 100;
+
+    private final OrderService orderService;
+    private final boolean enabled;
+    private final Semaphore capacity;
+    private final Duration retryAfter;
+    private final Duration maxPendingAge;
+    private final ExecutorService workers;
+    //Orders queued or running on this instance, so the sweeper does not submit them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public CheckoutPipeline(
+            OrderService orderService,
+            @Value("${app.checkout.async.enabled:false}") boolean enabled,
+            @Value("${app.checkout.async.workers:16}") int workers,
+            @Value("${app.checkout.async.max-pending:1000}") int maxPending,
+            @Value("${app.checkout.async.retry-after:30s}") Duration retryAfter,
+            @Value("${app.checkout.async.max-pending-age:15m}") Duration maxPendingAge) {
+        this.orderService = orderService;
+        this.enabled = enabled;
+        this.capacity = new Semaphore(maxPending);
+        this.retryAfter = retryAfter;
+        this.maxPendingAge = maxPendingAge;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = enabled
+                ? Executors.newFixedThreadPool(workers, runnable -> new Thread(runnable, "checkout-" + threadCount.incrementAndGet()))
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OrderResponse submit(String userId) {
+        if(!capacity.tryAcquire()) {
+            throw new ServiceUnavailableException("Checkout is at capacity, please retry shortly", null);
+        }
+        OrderResponse order;
+        try {
+            order = orderService.createPendingOrder(userId);
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+        dispatch(order.getId());
+        return order;
+    }
+
+    //Picks up orders left PENDING by a restart or a transient failure, and cancels those that have
+    //stayed PENDING past max-pending-age so their lines go back to the cart
+    @Scheduled(fixedDelayString = "${app.checkout.async.sweep-interval-ms:30000}")
+    public void resubmitStalePendingOrders() {
+        if(!enabled) {
+            return;
+        }
+        List<Long> expiredIds = orderService.findExpiredPendingOrderIds(
+                LocalDateTime.now().minus(maxPendingAge), EXPIRY_BATCH_SIZE);
+        for (Long orderId : expiredIds) {
+            if(inFlight.contains(orderId)) {
+                continue;
+            }
+            try {
+                orderService.expirePendingOrder(orderId);
+            } catch (RuntimeException e) {
+                log.warn("Expiring pending order {} failed, it will be retried", orderId, e);
+            }
+        }
+
+        if(capacity.availablePermits() == 0) {
+            return;
+        }
+        List<Long> orderIds = orderService.findStalePendingOrderIds(
+                LocalDateTime.now().minus(retryAfter), capacity.availablePermits());
+        for (Long orderId : orderIds) {
+            if(inFlight.contains(orderId) || !capacity.tryAcquire()) {
+                continue;
+            }
+            dispatch(orderId);
+        }
+    }
+
+    private void dispatch(Long orderId) {
+        inFlight.add(orderId);
+        workers.execute(() -> {
+            try {
+                orderService.processPendingOrder(orderId);
+            } catch (Exception e) {
+                log.warn("Processing of pending order {} failed, it will be retried", orderId, e);
+            } finally {
+                inFlight.remove(orderId);
+                capacity.release();
+            }
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if(workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.clients.RemoteCallExecutor;
+import com.ecommerce.order.exception.IdempotencyConflictException;
+import com.ecommerce.order.exception.IdempotencyKeyMismatchException;
+import com.ecommerce.order.repository.IdempotencyStore;
+import com.ecommerce.order.repository.IdempotencyStore.StoredResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final IdempotencyStore idempotencyStore;
+    private final JsonMapper jsonMapper;
+    //Requests with the same key running on this instance right now
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code action} once per user, operation and key. Repeats within the window
+     * get the stored response; a repeat arriving while the first is still running
+     * waits for it. Reusing a key with a different request body is rejected with 422.
+     * Failed requests are not remembered, so they can be retried.
+     */
+    public <T> ResponseEntity<T> execute(String userId, String operation, String idempotencyKey, Object request,
+                                         Class<T> bodyType, Supplier<ResponseEntity<T>> action) {
+        if(idempotencyKey == null) {
+            return action.get();
+        }
+        if(idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(IDEMPOTENCY_KEY_HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String key = userId + ":" + operation + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        Optional<StoredResponse> stored = idempotencyStore.find(key);
+        if(stored.isPresent()) {
+            return replay(stored.get(), requestHash, bodyType);
+        }
+
+        InFlight pending = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight first = inFlight.putIfAbsent(key, pending);
+        if(first != null) {
+            checkSameRequest(first.requestHash(), requestHash);
+            return replay(RemoteCallExecutor.await(first.response()), requestHash, bodyType);
+        }
+
+        try {
+            //The first request may have finished between the lookup and taking the slot
+            stored = idempotencyStore.find(key);
+            if(stored.isPresent()) {
+                pending.response().complete(stored.get());
+                return replay(stored.get(), requestHash, bodyType);
+            }
+            Optional<String> holder = idempotencyStore.claim(key, requestHash);
+            if(holder.isPresent()) {
+                checkSameRequest(holder.get(), requestHash);
+                throw new IdempotencyConflictException("A request with this " + IDEMPOTENCY_KEY_HEADER + " is already in progress");
+            }
+
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                idempotencyStore.release(key);
+                throw e;
+            }
+
+            URI location = response.getHeaders().getLocation();
+            StoredResponse result = new StoredResponse(
+                    response.getStatusCode().value(),
+                    response.getBody() == null ? null : jsonMapper.writeValueAsString(response.getBody()),
+                    location == null ? null : location.toString(),
+                    requestHash);
+            idempotencyStore.complete(key, result);
+            pending.response().complete(result);
+            return response;
+        } catch (RuntimeException e) {
+            pending.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> bodyType) {
+        checkSameRequest(stored.requestHash(), requestHash);
+        T body = stored.body() == null ? null : jsonMapper.readValue(stored.body(), bodyType);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true");
+        if(stored.location() != null) {
+            builder.location(URI.create(stored.location()));
+        }
+        return builder.body(body);
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if(storedHash != null && !storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException(
+                    IDEMPOTENCY_KEY_HEADER + " was already used with a different request body");
+        }
+    }
+
+    private String hash(Object request) {
+        byte[] bytes = request == null ? new byte[0] : jsonMapper.writeValueAsBytes(request);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<StoredResponse> response) {
+    }
+}
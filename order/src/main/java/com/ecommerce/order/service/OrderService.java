@@ -1,73 +1,401 @@
 package com.ecommerce.order.service;
 
 
-import com.ecommerce.order.clients.UserServiceClient;
+import com.ecommerce.order.cache.UserExistenceCache;
+import com.ecommerce.order.clients.ProductServiceClient;
+import com.ecommerce.order.clients.RemoteCallExecutor;
 import com.ecommerce.order.dto.OrderItemDTO;
+import com.ecommerce.order.dto.OrderKey;
+import com.ecommerce.order.dto.OrderPage;
 import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.dto.ProductResponse;
+import com.ecommerce.order.dto.ReservationItemRequest;
+import com.ecommerce.order.dto.ReservationRequest;
+import com.ecommerce.order.dto.ReservationResponse;
+import com.ecommerce.order.exception.CheckoutInProgressException;
 import com.ecommerce.order.exception.EmptyCartException;
+import com.ecommerce.order.exception.OrderNotFoundException;
+import com.ecommerce.order.exception.OutOfStockException;
+import com.ecommerce.order.exception.ProductNotFoundException;
+import com.ecommerce.order.exception.ServiceUnavailableException;
 import com.ecommerce.order.exception.UserNotFoundException;
 import com.ecommerce.order.model.CartItem;
+import com.ecommerce.order.model.Money;
 import com.ecommerce.order.model.Order;
 import com.ecommerce.order.model.OrderItem;
 import com.ecommerce.order.model.OrderStatus;
+import com.ecommerce.order.repository.CartStore;
 import com.ecommerce.order.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class OrderService {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final CartService cartService;
-    private final UserServiceClient userServiceClient;
+    private final UserExistenceCache userExistenceCache;
+    private final ProductServiceClient productServiceClient;
+    private final RemoteCallExecutor remoteCallExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
 
     public OrderResponse createService(String userId) {
 
+        //Load cart and check user concurrently
+        CompletableFuture<List<CartItem>> cartLookup =
+                remoteCallExecutor.submit(() -> cartService.getCart(userId));
+        CompletableFuture<Boolean> userLookup =
+                remoteCallExecutor.submit(() -> userExistenceCache.exists(userId));
+
         //Validate for cart items
-        List<CartItem> cartItems = cartService.getCart(userId);
+        List<CartItem> cartItems = RemoteCallExecutor.await(cartLookup);
         if(cartItems.isEmpty()){
             throw new EmptyCartException("Cart is empty for user ID: " + userId);
         }
 
         //Validate for user
-        try {
-            userServiceClient.getUserDetails(userId);
-        } catch (Exception e) {
+        boolean userExists = RemoteCallExecutor.await(userLookup,
+                () -> new UserNotFoundException("User not found with ID: " + userId));
+        if(!userExists) {
             throw new UserNotFoundException("User not found with ID: " + userId);
         }
 
-        //Calculate total price
-        BigDecimal totalPrice = cartItems
-                .stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        //Re-price and validate all cart items in a single round trip
+        Map<String, Integer> quantities = toQuantities(cartItems);
+        Map<String, ProductResponse> products = fetchProducts(quantities);
+
+        //Reserve stock for every line atomically before persisting the order
+        ReservationResponse reservation = reserveStock(quantities);
 
         //Create order
         Order order = new Order();
         order.setUserId(userId);
         order.setStatus(OrderStatus.CONFIRMED);
-        order.setTotalAmount(totalPrice);
-        List<OrderItem> orderItems = cartItems.stream()
-                .map(item -> new OrderItem(
-                        null,
-                        item.getProductId(),
-                        item.getQuantity(),
-                        item.getPrice(),
+        order.setItems(quantities.entrySet()
+                .stream()
+                .map(entry -> new OrderItem(
+                        entry.getKey(),
+                        entry.getValue(),
+                        products.get(entry.getKey()).getPrice(),
                         order
-                )).toList();
-        order.setItems(orderItems);
-        Order savedOrder = orderRepository.save(order);
+                )).collect(Collectors.toList()));
+        order.setTotalAmount(calculateTotal(order.getItems()));
+        order.setReservationId(reservation.getId());
+        order.setReservationConfirmed(false);
+
+        Order savedOrder;
+        try {
+            //Persist the order and take the ordered lines out of the cart in one transaction
+            savedOrder = transactionTemplate.execute(status -> {
+                Order persistedOrder = orderRepository.save(order);
+                outboxService.orderCreated(persistedOrder);
+                cartService.removeOrderedItems(userId, quantities);
+                return persistedOrder;
+            });
+        } catch (RuntimeException e) {
+            releaseReservation(reservation.getId());
+            throw e;
+        }
+
+        if(!confirmReservation(savedOrder.getId())) {
+            throw new OutOfStockException("Stock reservation expired before the order could be confirmed.");
+        }
+        return mapToOrderResponse(savedOrder);
+    }
+
+    /**
+     * Accepts a checkout without doing any remote work: the cart lines are moved into
+     * a PENDING order at their cart prices, to be re-priced and reserved by
+     * {@link #processPendingOrder(Long)}. A user has at most one PENDING order.
+     */
+    @Transactional
+    public OrderResponse createPendingOrder(String userId) {
+        List<CartItem> cartItems = cartService.getCart(userId);
+        if(cartItems.isEmpty()){
+            throw new EmptyCartException("Cart is empty for user ID: " + userId);
+        }
+
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setStatus(OrderStatus.PENDING);
+        Map<String, BigDecimal> cartPrices = cartItems.stream()
+                .collect(Collectors.toMap(CartItem::getProductId, CartItem::getPrice, (first, second) -> second));
+        Map<String, Integer> quantities = toQuantities(cartItems);
+        order.setItems(quantities.entrySet()
+                .stream()
+                .map(entry -> new OrderItem(entry.getKey(), entry.getValue(), cartPrices.get(entry.getKey()), order))
+                .collect(Collectors.toList()));
+        order.setTotalAmount(calculateTotal(order.getItems()));
 
-        //Clear the cart
-        cartService.clearCart(userId);
+        Order savedOrder;
+        try {
+            //Flush now so the one-PENDING-order-per-user index rejects a concurrent second checkout here
+            savedOrder = orderRepository.saveAndFlush(order);
+        } catch (DataIntegrityViolationException e) {
+            throw new CheckoutInProgressException("A checkout is already pending for user ID: " + userId);
+        }
+        //The ordered lines now belong to the order; a repeated checkout finds them gone
+        cartService.removeOrderedItems(userId, quantities);
         return mapToOrderResponse(savedOrder);
     }
 
+    public void processPendingOrder(Long orderId) {
+        Order order = orderRepository.findWithItemsById(orderId).orElse(null);
+        if(order == null || order.getStatus() != OrderStatus.PENDING) {
+            return;
+        }
+
+        Map<String, Integer> quantities = order.getItems().stream()
+                .collect(Collectors.toMap(OrderItem::getProductId, OrderItem::getQuantity, Integer::sum, LinkedHashMap::new));
+        Map<String, ProductResponse> products;
+        ReservationResponse reservation;
+        try {
+            if(!userExistenceCache.exists(order.getUserId())) {
+                throw new UserNotFoundException("User not found with ID: " + order.getUserId());
+            }
+            products = fetchProducts(quantities);
+            reservation = reserveStock(quantities);
+        } catch (UserNotFoundException | ProductNotFoundException | OutOfStockException e) {
+            //The order can never succeed; anything else is left PENDING for a retry
+            cancelOrder(orderId, OrderStatus.PENDING, e.getMessage());
+            return;
+        }
+
+        Order confirmedOrder;
+        try {
+            confirmedOrder = transactionTemplate.execute(status -> {
+                Order locked = orderRepository.findForUpdateById(orderId).orElse(null);
+                if(locked == null || locked.getStatus() != OrderStatus.PENDING) {
+                    return null;
+                }
+                locked.getItems().forEach(item -> item.applyPrice(products.get(item.getProductId()).getPrice()));
+                locked.setTotalAmount(calculateTotal(locked.getItems()));
+                locked.setStatus(OrderStatus.CONFIRMED);
+                locked.setReservationId(reservation.getId());
+                locked.setReservationConfirmed(false);
+                outboxService.orderCreated(locked);
+                return locked;
+            });
+        } catch (RuntimeException e) {
+            releaseReservation(reservation.getId());
+            throw e;
+        }
+
+        if(confirmedOrder == null) {
+            //Another worker settled this order first
+            releaseReservation(reservation.getId());
+            return;
+        }
+        confirmReservation(orderId);
+    }
+
+    public List<Long> findStalePendingOrderIds(LocalDateTime updatedBefore, int limit) {
+        return orderRepository.findIdsByStatusAndUpdatedAtBefore(OrderStatus.PENDING, updatedBefore, Limit.of(limit));
+    }
+
+    public List<Long> findExpiredPendingOrderIds(LocalDateTime createdBefore, int limit) {
+        return orderRepository.findIdsByStatusAndCreatedAtBefore(OrderStatus.PENDING, createdBefore, Limit.of(limit));
+    }
+
+    //Gives up on a PENDING order that keeps failing transiently: while it stays PENDING the user cannot check out again
+    public void expirePendingOrder(Long orderId) {
+        cancelOrder(orderId, OrderStatus.PENDING, "Checkout could not be completed in time; the items are back in the cart");
+    }
+
+    public List<Long> findOrdersWithUnconfirmedReservation(LocalDateTime updatedBefore, int limit) {
+        return orderRepository.findIdsWithUnconfirmedReservation(OrderStatus.CONFIRMED, updatedBefore, Limit.of(limit));
+    }
+
+    /**
+     * Confirms the stock reservation behind a CONFIRMED order. If product-service no longer
+     * has it active (released or expired), its stock may already be sold again, so the order
+     * is cancelled and false returned. Any other failure leaves the order unconfirmed for
+     * {@link ReservationConfirmationJob} to retry.
+     */
+    public boolean confirmReservation(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if(order == null || order.getStatus() != OrderStatus.CONFIRMED || !Boolean.FALSE.equals(order.getReservationConfirmed())) {
+            return true;
+        }
+
+        try {
+            productServiceClient.confirmReservation(order.getReservationId());
+        } catch (HttpClientErrorException.NotFound e) {
+            log.warn("Stock reservation {} for order {} is no longer active, cancelling the order",
+                    order.getReservationId(), orderId);
+            cancelOrder(orderId, OrderStatus.CONFIRMED, "Stock reservation expired before it was confirmed");
+            return false;
+        } catch (RuntimeException e) {
+            log.warn("Failed to confirm stock reservation {} for order {}, will retry",
+                    order.getReservationId(), orderId, e);
+            return true;
+        }
+        transactionTemplate.executeWithoutResult(status -> orderRepository.markReservationConfirmed(orderId));
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public OrderResponse getOrder(String userId, Long orderId) {
+        return orderRepository.findWithItemsById(orderId)
+                .filter(order -> order.getUserId().equals(userId))
+                .map(this::mapToOrderResponse)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + orderId));
+    }
+
+    @Transactional(readOnly = true)
+    public OrderPage getOrders(String userId, String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        //Fetch one extra key to know whether another page follows
+        Limit keyLimit = Limit.of(pageSize + 1);
+        OrderKey after = cursor == null ? null : decodeCursor(cursor);
+        List<OrderKey> keys = after == null
+                ? orderRepository.findLatestOrderKeys(userId, keyLimit)
+                : orderRepository.findOrderKeysBefore(userId, after.createdAt(), after.id(), keyLimit);
+
+        boolean hasMore = keys.size() > pageSize;
+        List<OrderKey> pageKeys = hasMore ? keys.subList(0, pageSize) : keys;
+        if(pageKeys.isEmpty()) {
+            return new OrderPage(List.of(), null);
+        }
+
+        //Second and last statement: the page's orders with their items in one fetch join
+        Map<Long, Order> orders = orderRepository.findWithItemsByIdIn(pageKeys.stream().map(OrderKey::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<OrderResponse> items = pageKeys.stream()
+                .map(key -> mapToOrderResponse(orders.get(key.id())))
+                .toList();
+        String nextCursor = hasMore ? encodeCursor(pageKeys.get(pageKeys.size() - 1)) : null;
+        return new OrderPage(items, nextCursor);
+    }
+
+    private String encodeCursor(OrderKey key) {
+        String raw = key.createdAt() + "|" + key.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private OrderKey decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new OrderKey(Long.valueOf(raw.substring(separator + 1)), LocalDateTime.parse(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private void cancelOrder(Long orderId, OrderStatus expectedStatus, String reason) {
+        transactionTemplate.executeWithoutResult(status -> orderRepository.findForUpdateById(orderId)
+                .filter(order -> order.getStatus() == expectedStatus)
+                .ifPresent(order -> {
+                    order.setStatus(OrderStatus.CANCELLED);
+                    order.setFailureReason(reason);
+                    if(expectedStatus == OrderStatus.CONFIRMED) {
+                        //Consumers have seen order.created for it
+                        outboxService.orderCancelled(order);
+                    }
+                    //The lines left the cart when the order was accepted; give them back
+                    cartService.addBackToCart(order.getUserId(), order.getItems().stream()
+                            .map(item -> new CartStore.CartLine(item.getProductId(), item.getQuantity(), item.getPrice()))
+                            .toList());
+                }));
+    }
+
+    private ReservationResponse reserveStock(Map<String, Integer> quantities) {
+        ReservationRequest request = new ReservationRequest(quantities.entrySet()
+                .stream()
+                .map(entry -> new ReservationItemRequest(entry.getKey(), entry.getValue()))
+                .toList());
+
+        try {
+            return productServiceClient.reserveStock(request);
+        } catch (HttpClientErrorException.Conflict e) {
+            //Product service answers 409 when any line cannot be reserved
+            throw new OutOfStockException("One or more products are out of stock or have insufficient quantity.");
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ProductNotFoundException("One or more products in the cart no longer exist.");
+        } catch (ServiceUnavailableException e) {
+            throw e;
+        } catch (RestClientException e) {
+            //Anything else is the product service failing, not a stock shortfall
+            throw new ServiceUnavailableException("Unable to reserve stock, please retry shortly", e);
+        }
+    }
+
+    private void releaseReservation(String reservationId) {
+        try {
+            productServiceClient.releaseReservation(reservationId);
+        } catch (Exception e) {
+            //The reservation expires on its own once its TTL passes
+            log.warn("Failed to release stock reservation {}", reservationId, e);
+        }
+    }
+
+    private Map<String, ProductResponse> fetchProducts(Map<String, Integer> quantities) {
+        List<String> productIds = List.copyOf(quantities.keySet());
+
+        Map<String, ProductResponse> products;
+        try {
+            products = productServiceClient.getProductDetailsBatch(productIds)
+                    .stream()
+                    .collect(Collectors.toMap(product -> String.valueOf(product.getId()), Function.identity()));
+        } catch (ServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ProductNotFoundException("Products not found with IDs: " + productIds);
+        }
+
+        quantities.forEach((productId, quantity) -> {
+            ProductResponse product = products.get(productId);
+            if(product == null) {
+                throw new ProductNotFoundException("Product not found with ID: " + productId);
+            }
+            if(product.getStockQuantity() < quantity) {
+                throw new OutOfStockException("Product " + product.getName() + " is out of stock or insufficient quantity.");
+            }
+        });
+        return products;
+    }
+
+    private Map<String, Integer> toQuantities(List<CartItem> cartItems) {
+        return cartItems.stream()
+                .collect(Collectors.toMap(CartItem::getProductId, CartItem::getQuantity, Integer::sum, LinkedHashMap::new));
+    }
+
+    private BigDecimal calculateTotal(List<OrderItem> items) {
+        //Line totals are already priced in minor units; convert once for the order
+        Money total = Money.ZERO;
+        for (OrderItem item : items) {
+            total = total.plus(item.getLineTotal());
+        }
+        return total.toBigDecimal();
+    }
+
     private OrderResponse mapToOrderResponse(Order order) {
         return new OrderResponse(
                 order.getId(),
@@ -80,11 +408,10 @@ public class OrderService {
                                 orderItem.getProductId(),
                                 orderItem.getQuantity(),
                                 orderItem.getPrice(),
-                                orderItem.getPrice()
-                                        .multiply(new BigDecimal(orderItem.getQuantity()))
-
+                                orderItem.getLineTotal().toBigDecimal()
                         )).toList(),
-                order.getCreatedAt()
+                order.getCreatedAt(),
+                order.getFailureReason()
         );
     }
 }
@@ -0,0 +1,103 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.model.OutboxEvent;
+import com.ecommerce.order.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String exchange;
+    private final int batchSize;
+    private final Duration confirmTimeout;
+    private final Duration retention;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            RabbitTemplate rabbitTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.outbox.exchange:order.events}") String exchange,
+            @Value("${app.outbox.batch-size:100}") int batchSize,
+            @Value("${app.outbox.confirm-timeout:5s}") Duration confirmTimeout,
+            @Value("${app.outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.exchange = exchange;
+        this.batchSize = batchSize;
+        this.confirmTimeout = confirmTimeout;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            //Rows stay unpublished and are retried on the next run
+            log.warn("Outbox relay failed, will retry", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval-ms:3600000}")
+    public void purgePublished() {
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(retention)));
+    }
+
+    private int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxEventRepository.lockUnpublished(batchSize);
+            if(events.isEmpty()) {
+                return 0;
+            }
+
+            //Publish the whole batch on one channel and wait for the broker to confirm it
+            rabbitTemplate.invoke(operations -> {
+                for (OutboxEvent event : events) {
+                    operations.send(exchange, event.getEventType(), toMessage(event));
+                }
+                operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            });
+
+            outboxEventRepository.markPublished(
+                    events.stream().map(OutboxEvent::getId).toList(),
+                    LocalDateTime.now()
+            );
+            return events.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        return MessageBuilder
+                .withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setMessageId(String.valueOf(event.getId()))
+                .setHeader("aggregateType", event.getAggregateType())
+                .setHeader("aggregateId", event.getAggregateId())
+                .setHeader("eventType", event.getEventType())
+                .build();
+    }
+}
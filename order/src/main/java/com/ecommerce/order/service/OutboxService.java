@@ -0,0 +1,67 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.dto.OrderItemDTO;
+import com.ecommerce.order.event.OrderCancelledEvent;
+import com.ecommerce.order.event.OrderCreatedEvent;
+import com.ecommerce.order.model.Order;
+import com.ecommerce.order.model.OutboxEvent;
+import com.ecommerce.order.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    public static final String ORDER_CREATED = "order.created";
+    public static final String ORDER_CANCELLED = "order.cancelled";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JsonMapper jsonMapper;
+
+    //Must join the transaction that saves the order, so both commit or neither does
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        OrderCreatedEvent event = new OrderCreatedEvent(
+                order.getId(),
+                order.getUserId(),
+                order.getTotalAmount(),
+                order.getItems()
+                        .stream()
+                        .map(orderItem -> new OrderItemDTO(
+                                orderItem.getId(),
+                                orderItem.getProductId(),
+                                orderItem.getQuantity(),
+                                orderItem.getPrice(),
+                                orderItem.getLineTotal().toBigDecimal()
+                        )).toList(),
+                LocalDateTime.now()
+        );
+
+        save(order, ORDER_CREATED, event);
+    }
+
+    //A cancelled order that was announced as created; consumers undo what they did for it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCancelled(Order order) {
+        save(order, ORDER_CANCELLED, new OrderCancelledEvent(
+                order.getId(),
+                order.getUserId(),
+                order.getFailureReason(),
+                LocalDateTime.now()
+        ));
+    }
+
+    private void save(Order order, String eventType, Object event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType("order");
+        outboxEvent.setAggregateId(String.valueOf(order.getId()));
+        outboxEvent.setEventType(eventType);
+        outboxEvent.setPayload(jsonMapper.writeValueAsString(event));
+        outboxEventRepository.save(outboxEvent);
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.order.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Retries stock reservation confirms that failed after their order was committed.
+ * The reservation id is stored on the order in the same transaction, so a confirm
+ * lost to a crash or a product-service outage is picked up here until it either
+ * succeeds or the reservation has expired and the order is cancelled.
+ */
+@Component
+@Slf4j
+public class ReservationConfirmationJob {
+    private static final int BATCH_SIZE = 100;
+
+    private final OrderService orderService;
+    private final Duration retryAfter;
+
+    public ReservationConfirmationJob(
+            OrderService orderService,
+            @Value("${app.reservations.confirm-retry-after:30s}") Duration retryAfter) {
+        this.orderService = orderService;
+        this.retryAfter = retryAfter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.confirm-retry-interval-ms:30000}")
+    public void confirmOutstandingReservations() {
+        //Orders younger than retryAfter are still being confirmed by the request that placed them
+        List<Long> orderIds = orderService.findOrdersWithUnconfirmedReservation(
+                LocalDateTime.now().minus(retryAfter), BATCH_SIZE);
+        for (Long orderId : orderIds) {
+            try {
+                orderService.confirmReservation(orderId);
+            } catch (Exception e) {
+                log.warn("Failed to settle stock reservation for order {}", orderId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+-- Runs after Hibernate has created/updated the tables (spring.jpa.defer-datasource-initialization)
+
+-- Move the pooled id sequences past ids issued by the former IDENTITY columns
+SELECT setval('orders_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM orders), (SELECT last_value FROM orders_seq)));
+SELECT setval('order_item_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM order_item), (SELECT last_value FROM order_item_seq)));
+-- cart_item ids come from both Hibernate and the upsert's nextval, so the sequence steps by one
+ALTER SEQUENCE cart_item_seq INCREMENT BY 1;
+SELECT setval('cart_item_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM cart_item), (SELECT last_value FROM cart_item_seq)));
+SELECT setval('outbox_events_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM outbox_events), (SELECT last_value FROM outbox_events_seq)));
+
+-- Collapse duplicate cart rows left by the old read-then-save add, then enforce one row per user and product.
+-- The unique index also serves the per-user cart lookups (leading user_id column) and the add-to-cart upsert
+UPDATE cart_item c SET quantity = d.total_quantity
+FROM (SELECT MIN(id) AS keep_id, SUM(quantity) AS total_quantity FROM cart_item GROUP BY user_id, product_id HAVING COUNT(*) > 1) d
+WHERE c.id = d.keep_id;
+DELETE FROM cart_item c USING cart_item k WHERE c.user_id = k.user_id AND c.product_id = k.product_id AND c.id > k.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_cart_item_user_product ON cart_item (user_id, product_id);
+
+-- Partial index keeps the relay's poll query cheap however many published rows are retained
+CREATE INDEX IF NOT EXISTS idx_outbox_events_unpublished ON outbox_events (id) WHERE published_at IS NULL;
+
+-- Lets the checkout sweeper find stale PENDING orders without scanning settled ones
+CREATE INDEX IF NOT EXISTS idx_orders_pending ON orders (updated_at) WHERE status = 'PENDING';
+
+-- One PENDING order per user: an async checkout takes the cart lines, so a second one must wait.
+-- Older duplicates from before this index are cancelled so it can be built
+UPDATE orders o SET status = 'CANCELLED', failure_reason = 'Duplicate pending checkout'
+WHERE o.status = 'PENDING'
+  AND EXISTS (SELECT 1 FROM orders p WHERE p.user_id = o.user_id AND p.status = 'PENDING' AND p.id < o.id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_orders_user_pending ON orders (user_id) WHERE status = 'PENDING';
+
+-- Lets the confirm retry job find orders whose stock reservation is not yet confirmed
+CREATE INDEX IF NOT EXISTS idx_orders_reservation_unconfirmed ON orders (updated_at) WHERE reservation_confirmed = false;
+
+-- Order history: keyset paging per user, newest first
+CREATE INDEX IF NOT EXISTS idx_orders_user_created ON orders (user_id, created_at DESC, id DESC);
+
+-- Lets the idempotency purge drop expired keys without a full scan
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created ON idempotency_keys (created_at);
+
+-- One-off data migrations: each runs only on the boot that first records its name here
+CREATE TABLE IF NOT EXISTS schema_migrations (name VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL DEFAULT now());
+
+-- Backfill line totals for items written before order_item.line_total existed. Once the marker row exists the
+-- EXISTS is a one-time false filter, so later boots skip the order_item scan entirely
+WITH applied AS (
+    INSERT INTO schema_migrations (name) VALUES ('order_item_line_total_backfill') ON CONFLICT (name) DO NOTHING RETURNING name
+)
+UPDATE order_item SET line_total = price * quantity
+WHERE EXISTS (SELECT 1 FROM applied) AND line_total IS NULL AND price IS NOT NULL;
@@ -0,0 +1,92 @@
+package com.ecommerce.order.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing an order's lines and summing the total, with {@link BigDecimal} throughout
+ * (the old code) against {@link Money} as {@code OrderItem} and {@code OrderService} use it.
+ * Run with:
+ * <pre>
+ * ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main MoneyBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int lines;
+
+    private BigDecimal[] prices;
+    private Money[] moneyPrices;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        quantities = new int[lines];
+        for(int i = 0; i < lines; i++) {
+            prices[i] = BigDecimal.valueOf(1 + random.nextInt(99_999), Money.SCALE);
+            moneyPrices[i] = Money.of(prices[i]);
+            quantities[i] = 1 + random.nextInt(10);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for(int i = 0; i < lines; i++) {
+            total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+
+    //Converts at the edges the way the service does: prices arrive as BigDecimal, the total leaves as one
+    @Benchmark
+    public BigDecimal moneyWithConversions() {
+        Money total = Money.ZERO;
+        for(int i = 0; i < lines; i++) {
+            total = total.plus(Money.of(prices[i]).times(quantities[i]));
+        }
+        return total.toBigDecimal();
+    }
+
+    @Benchmark
+    public BigDecimal moneyOnly() {
+        Money total = Money.ZERO;
+        for(int i = 0; i < lines; i++) {
+            total = total.plus(moneyPrices[i].times(quantities[i]));
+        }
+        return total.toBigDecimal();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.order.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void ofRoundsHalfUpToCents() {
+        assertThat(Money.of(new BigDecimal("19.995")).minorUnits()).isEqualTo(2000);
+        assertThat(Money.of(new BigDecimal("19.994")).minorUnits()).isEqualTo(1999);
+        assertThat(Money.of(new BigDecimal("7")).minorUnits()).isEqualTo(700);
+    }
+
+    @Test
+    void toBigDecimalKeepsTwoDecimals() {
+        assertThat(new Money(1050).toBigDecimal()).isEqualTo(new BigDecimal("10.50"));
+        assertThat(Money.ZERO.toBigDecimal()).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    @Test
+    void timesAndPlusMatchBigDecimalArithmetic() {
+        BigDecimal price = new BigDecimal("12.34");
+        BigDecimal expected = price.multiply(BigDecimal.valueOf(3)).add(new BigDecimal("0.66"));
+
+        Money total = Money.of(price).times(3).plus(Money.of(new BigDecimal("0.66")));
+
+        assertThat(total.toBigDecimal()).isEqualTo(expected);
+    }
+
+    @Test
+    void timesThrowsOnOverflow() {
+        Money large = new Money(Long.MAX_VALUE / 2 + 1);
+
+        assertThatThrownBy(() -> large.times(2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void plusThrowsOnOverflow() {
+        Money max = new Money(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(new Money(1))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void ofThrowsWhenAmountDoesNotFitInALong() {
+        BigDecimal tooLarge = BigDecimal.valueOf(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> Money.of(tooLarge)).isInstanceOf(ArithmeticException.class);
+    }
+}
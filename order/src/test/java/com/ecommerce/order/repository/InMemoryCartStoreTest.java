@@ -0,0 +1,174 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.CartItem;
+import com.ecommerce.order.repository.CartStore.CartLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryCartStoreTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("10.00");
+
+    @TempDir
+    private Path walDirectory;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final List<InMemoryCartStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (InMemoryCartStore store : stores) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    void changesSurviveACrashBeforeAnySnapshot() throws IOException {
+        //Never destroyed: it stands in for a process that died without snapshotting
+        InMemoryCartStore crashed = newStore();
+        crashed.addItems("u1", List.of(new CartLine("p1", 2, PRICE), new CartLine("p2", 1, PRICE)));
+        crashed.removeItem("u1", "p2");
+        crashed.addItems("u2", List.of(new CartLine("p3", 1, PRICE)));
+        crashed.clearCart("u2");
+        clearInvocations(cartItemRepository);
+
+        InMemoryCartStore recovered = open();
+
+        assertThat(quantities(recovered.findByUserId("u1"))).containsExactly("p1=2");
+        assertThat(recovered.findByUserId("u2")).isEmpty();
+        verify(cartItemRepository, never()).findByUserId(any());
+    }
+
+    @Test
+    void lastEntryPerUserWinsAcrossSegmentsAndTornTailIsSkipped() throws IOException {
+        Files.writeString(walDirectory.resolve("cart.wal.0000000000000000001"),
+                entry("u1", "p1", 1) + entry("u2", "p2", 5));
+        Files.writeString(walDirectory.resolve("cart.wal"),
+                entry("u1", "p1", 3) + "{\"userId\":\"u2\",\"lines\":[{\"productId\":\"p2\",\"qu");
+
+        InMemoryCartStore store = open();
+
+        assertThat(quantities(store.findByUserId("u1"))).containsExactly("p1=3");
+        assertThat(quantities(store.findByUserId("u2"))).containsExactly("p2=5");
+    }
+
+    @Test
+    void snapshotPersistsRecoveredCartsAndDropsCoveredSegments() throws IOException {
+        runTransactionCallbacks();
+        Files.writeString(walDirectory.resolve("cart.wal"), entry("u1", "p1", 4));
+        InMemoryCartStore store = open();
+
+        store.snapshot();
+
+        verify(cartItemRepository).deleteByUserId("u1");
+        verify(cartItemRepository).saveAll(anyList());
+        assertThat(walFiles()).containsExactly("cart.wal");
+    }
+
+    @Test
+    void failedSnapshotKeepsSegmentsForTheNextRecovery() throws IOException {
+        runTransactionCallbacks();
+        when(cartItemRepository.saveAll(anyList())).thenThrow(new IllegalStateException("database down"));
+        InMemoryCartStore crashed = newStore();
+        crashed.addItems("u1", List.of(new CartLine("p1", 2, PRICE)));
+
+        crashed.snapshot();
+
+        assertThat(walFiles()).hasSize(2);
+        assertThat(quantities(open().findByUserId("u1"))).containsExactly("p1=2");
+    }
+
+    @Test
+    void backToBackRotationsGetDistinctSegmentsAndKeepTheLogWritable() throws IOException {
+        runTransactionCallbacks();
+        when(cartItemRepository.saveAll(anyList())).thenThrow(new IllegalStateException("database down"));
+        Files.writeString(walDirectory.resolve("cart.wal.0000000000000000007"), entry("u0", "p0", 1));
+        InMemoryCartStore crashed = newStore();
+
+        crashed.addItems("u1", List.of(new CartLine("p1", 1, PRICE)));
+        crashed.snapshot();
+        crashed.addItems("u1", List.of(new CartLine("p1", 1, PRICE)));
+        crashed.snapshot();
+        crashed.addItems("u1", List.of(new CartLine("p1", 1, PRICE)));
+
+        assertThat(walFiles()).containsExactly("cart.wal",
+                "cart.wal.0000000000000000007", "cart.wal.0000000000000000008", "cart.wal.0000000000000000009");
+        assertThat(quantities(open().findByUserId("u1"))).containsExactly("p1=3");
+    }
+
+    @Test
+    void writesAfterCloseAreRejected() throws Exception {
+        InMemoryCartStore store = newStore();
+        store.destroy();
+
+        assertThatThrownBy(() -> store.addItems("u1", List.of(new CartLine("p1", 1, PRICE))))
+                .hasMessageContaining("cart WAL");
+    }
+
+    private InMemoryCartStore open() throws IOException {
+        InMemoryCartStore store = newStore();
+        stores.add(store);
+        return store;
+    }
+
+    private InMemoryCartStore newStore() throws IOException {
+        return new InMemoryCartStore(cartItemRepository, transactionTemplate, jsonMapper,
+                walDirectory, false, 500, Duration.ofMinutes(30));
+    }
+
+    private void runTransactionCallbacks() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private String entry(String userId, String productId, int quantity) {
+        return "{\"userId\":\"" + userId + "\",\"lines\":[{\"productId\":\"" + productId
+                + "\",\"quantity\":" + quantity + ",\"price\":10.00}]}\n";
+    }
+
+    private List<String> quantities(List<CartItem> items) {
+        return items.stream().map(item -> item.getProductId() + "=" + item.getQuantity()).toList();
+    }
+
+    private List<String> walFiles() throws IOException {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.model.Order;
+import com.ecommerce.order.model.OrderItem;
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements behind saving one order. With the old IDENTITY ids every
+ * row was its own INSERT (N + 1 for N items); pooled sequences let Hibernate batch them.
+ * The IDENTITY-mapped copies below keep that baseline measurable next to the real entities.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50"
+})
+class OrderInsertStatementsTest {
+
+    private static final int ITEMS = 20;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        //The first save fetches a block of ids from each sequence; later saves draw from it
+        orderRepository.saveAndFlush(newOrder(1));
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void orderWithItemsIsInsertedInOneBatchPerTable() {
+        orderRepository.saveAndFlush(newOrder(ITEMS));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ITEMS + 1);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void sequenceIdsTakeFarFewerStatementsThanIdentityIds() {
+        entityManager.persist(newIdentityOrder(ITEMS));
+        entityManager.flush();
+        long identityStatements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+
+        orderRepository.saveAndFlush(newOrder(ITEMS));
+        long sequenceStatements = statistics.getPrepareStatementCount();
+
+        //IDENTITY needs the generated id back from each row, so nothing can be batched
+        assertThat(identityStatements).isGreaterThanOrEqualTo(ITEMS + 1);
+        assertThat(sequenceStatements).isLessThanOrEqualTo(2).isLessThan(identityStatements);
+    }
+
+    @Test
+    void sequenceIsCalledOncePerAllocationBlock() {
+        //60 more items on top of the warm-up's one crosses into a second block of 50
+        for(int i = 0; i < 3; i++) {
+            orderRepository.saveAndFlush(newOrder(ITEMS));
+        }
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(3 * (ITEMS + 1));
+        //Two inserts per order plus one order_item_seq call, far below 63 single-row inserts
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 * 2 + 1);
+    }
+
+    private Order newOrder(int items) {
+        Order order = new Order();
+        order.setUserId("user-1");
+        order.setTotalAmount(BigDecimal.ZERO);
+        for(int i = 0; i < items; i++) {
+            order.getItems().add(new OrderItem("product-" + i, 1, new BigDecimal("9.99"), order));
+        }
+        return order;
+    }
+
+    private IdentityOrder newIdentityOrder(int items) {
+        IdentityOrder order = new IdentityOrder();
+        order.setUserId("user-1");
+        for(int i = 0; i < items; i++) {
+            IdentityOrderItem item = new IdentityOrderItem();
+            item.setProductId("product-" + i);
+            item.setQuantity(1);
+            item.setOrder(order);
+            order.getItems().add(item);
+        }
+        return order;
+    }
+
+    //The order tables as they were mapped before the move to pooled sequences
+    @Entity(name = "identity_orders")
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    static class IdentityOrder {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        private String userId;
+
+        @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
+        private List<IdentityOrderItem> items = new ArrayList<>();
+    }
+
+    @Entity(name = "identity_order_item")
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    static class IdentityOrderItem {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        private String productId;
+
+        private Integer quantity;
+
+        @ManyToOne
+        @JoinColumn(name = "order_id", nullable = false)
+        private IdentityOrder order;
+    }
+}
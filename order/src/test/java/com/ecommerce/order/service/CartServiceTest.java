@@ -0,0 +1,83 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.cache.ProductDetailsCache;
+import com.ecommerce.order.cache.UserExistenceCache;
+import com.ecommerce.order.clients.RemoteCallExecutor;
+import com.ecommerce.order.dto.CartItemRequest;
+import com.ecommerce.order.repository.CartStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
+    @Mock
+    private ProductDetailsCache productDetailsCache;
+
+    @Mock
+    private RemoteCallExecutor remoteCallExecutor;
+
+    @InjectMocks
+    private CartService cartService;
+
+    @Test
+    void bulkAddRejectsMissingProductId() {
+        assertThatThrownBy(() -> cartService.addItemsToCart("u1", List.of(item(null, 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(cartStore, remoteCallExecutor);
+    }
+
+    @Test
+    void bulkAddRejectsMissingAndNonPositiveQuantities() {
+        for (Integer quantity : Arrays.asList(null, 0, -3)) {
+            assertThatThrownBy(() -> cartService.addItemsToCart("u1", List.of(item("p1", 2), item("p2", quantity))))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        verifyNoInteractions(cartStore, remoteCallExecutor);
+    }
+
+    @Test
+    void replaceRejectsInvalidLinesAndNullBody() {
+        assertThatThrownBy(() -> cartService.replaceCart("u1", List.of(item("p1", 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cartService.replaceCart("u1", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(cartStore, remoteCallExecutor);
+    }
+
+    @Test
+    void mergedQuantityOverflowIsRejected() {
+        assertThatThrownBy(() -> cartService.addItemsToCart("u1",
+                List.of(item("p1", Integer.MAX_VALUE), item("p1", 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void singleAddRejectsNonPositiveQuantity() {
+        assertThatThrownBy(() -> cartService.addToCart("u1", item("p1", -1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(cartStore, remoteCallExecutor);
+    }
+
+    private CartItemRequest item(String productId, Integer quantity) {
+        CartItemRequest request = new CartItemRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
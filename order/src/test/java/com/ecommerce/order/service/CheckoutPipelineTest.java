@@ -0,0 +1,60 @@
+package com.ecommerce.order.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutPipelineTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private CheckoutPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new CheckoutPipeline(orderService, true, 1, 10, Duration.ofSeconds(30), Duration.ofMinutes(15));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.destroy();
+    }
+
+    @Test
+    void ordersPendingPastMaxAgeAreExpiredInsteadOfResubmitted() {
+        when(orderService.findExpiredPendingOrderIds(any(LocalDateTime.class), anyInt())).thenReturn(List.of(1L, 2L));
+        when(orderService.findStalePendingOrderIds(any(LocalDateTime.class), anyInt())).thenReturn(List.of());
+
+        pipeline.resubmitStalePendingOrders();
+
+        verify(orderService).expirePendingOrder(1L);
+        verify(orderService).expirePendingOrder(2L);
+    }
+
+    @Test
+    void failedExpiryDoesNotStopTheSweep() {
+        when(orderService.findExpiredPendingOrderIds(any(LocalDateTime.class), anyInt())).thenReturn(List.of(1L, 2L));
+        when(orderService.findStalePendingOrderIds(any(LocalDateTime.class), anyInt())).thenReturn(List.of());
+        doThrow(new IllegalStateException("database unavailable")).when(orderService).expirePendingOrder(1L);
+
+        pipeline.resubmitStalePendingOrders();
+
+        verify(orderService).expirePendingOrder(2L);
+        verify(orderService).findStalePendingOrderIds(any(LocalDateTime.class), anyInt());
+    }
+}
@@ -0,0 +1,186 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.exception.IdempotencyConflictException;
+import com.ecommerce.order.exception.IdempotencyKeyMismatchException;
+import com.ecommerce.order.repository.IdempotencyStore;
+import com.ecommerce.order.repository.InMemoryIdempotencyStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final String KEY = "key-1";
+    private static final String STORE_KEY = "u1:create-order:" + KEY;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final IdempotencyService service = new IdempotencyService(
+            new InMemoryIdempotencyStore(Duration.ofHours(24), 1_000), jsonMapper);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void repeatReplaysStoredResponseWithoutRunningAgain() {
+        ResponseEntity<Body> first = execute("u1", KEY, new Request("p1"), this::created);
+        ResponseEntity<Body> repeat = execute("u1", KEY, new Request("p1"), this::created);
+
+        assertThat(calls).hasValue(1);
+        assertThat(first.getHeaders().containsHeader(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(repeat.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(repeat.getBody()).isEqualTo(new Body("order-1"));
+        assertThat(repeat.getHeaders().getLocation()).isEqualTo(URI.create("/api/orders/1"));
+        assertThat(repeat.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void reusingAKeyWithADifferentBodyIsRejected() {
+        execute("u1", KEY, new Request("p1"), this::created);
+
+        assertThatThrownBy(() -> execute("u1", KEY, new Request("p2"), this::created))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        execute("u1", KEY, new Request("p1"), this::created);
+        execute("u2", KEY, new Request("p1"), this::created);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void requestsWithoutAKeyAlwaysRun() {
+        execute("u1", null, new Request("p1"), this::created);
+        execute("u1", null, new Request("p1"), this::created);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void blankOrOversizedKeysAreRejected() {
+        assertThatThrownBy(() -> execute("u1", " ", new Request("p1"), this::created))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> execute("u1", "k".repeat(201), new Request("p1"), this::created))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheFirstInsteadOfRunningAgain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<Body>> first = CompletableFuture.supplyAsync(() ->
+                execute("u1", KEY, new Request("p1"), () -> {
+                    started.countDown();
+                    awaitQuietly(finish);
+                    return created();
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<ResponseEntity<Body>> duplicate = CompletableFuture.supplyAsync(() ->
+                execute("u1", KEY, new Request("p1"), this::created));
+        Thread.sleep(100);
+        finish.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(new Body("order-1"));
+        ResponseEntity<Body> replayed = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(replayed.getBody()).isEqualTo(new Body("order-1"));
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void failedRequestIsNotRememberedAndCanBeRetried() {
+        assertThatThrownBy(() -> execute("u1", KEY, new Request("p1"), () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        ResponseEntity<Body> retried = execute("u1", KEY, new Request("p1"), this::created);
+
+        assertThat(calls).hasValue(2);
+        assertThat(retried.getHeaders().containsHeader(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    void failureReleasesTheSharedClaim() {
+        IdempotencyStore store = mock(IdempotencyStore.class);
+        when(store.find(STORE_KEY)).thenReturn(Optional.empty());
+        when(store.claim(eq(STORE_KEY), anyString())).thenReturn(Optional.empty());
+        IdempotencyService shared = new IdempotencyService(store, jsonMapper);
+
+        assertThatThrownBy(() -> shared.execute("u1", "create-order", KEY, new Request("p1"), Body.class, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        verify(store).release(STORE_KEY);
+        verify(store, never()).complete(any(), any());
+    }
+
+    @Test
+    void claimHeldByAnotherInstanceIsAConflict() {
+        IdempotencyStore store = mock(IdempotencyStore.class);
+        when(store.find(STORE_KEY)).thenReturn(Optional.empty());
+        //Held for the same request body
+        when(store.claim(eq(STORE_KEY), anyString())).thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+        IdempotencyService shared = new IdempotencyService(store, jsonMapper);
+
+        assertThatThrownBy(() -> shared.execute("u1", "create-order", KEY, new Request("p1"), Body.class, this::created))
+                .isInstanceOf(IdempotencyConflictException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void claimHeldForADifferentBodyIsAMismatch() {
+        IdempotencyStore store = mock(IdempotencyStore.class);
+        when(store.find(STORE_KEY)).thenReturn(Optional.empty());
+        when(store.claim(eq(STORE_KEY), anyString())).thenReturn(Optional.of("another-request-hash"));
+        IdempotencyService shared = new IdempotencyService(store, jsonMapper);
+
+        assertThatThrownBy(() -> shared.execute("u1", "create-order", KEY, new Request("p1"), Body.class, this::created))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    private ResponseEntity<Body> execute(String userId, String key, Request request, Supplier<ResponseEntity<Body>> action) {
+        return service.execute(userId, "create-order", key, request, Body.class, action);
+    }
+
+    private ResponseEntity<Body> created() {
+        calls.incrementAndGet();
+        return ResponseEntity.created(URI.create("/api/orders/1")).body(new Body("order-1"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record Request(String productId) {
+    }
+
+    record Body(String orderId) {
+    }
+}
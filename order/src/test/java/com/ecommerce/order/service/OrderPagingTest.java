@@ -0,0 +1,133 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.cache.UserExistenceCache;
+import com.ecommerce.order.clients.ProductServiceClient;
+import com.ecommerce.order.clients.RemoteCallExecutor;
+import com.ecommerce.order.dto.OrderPage;
+import com.ecommerce.order.dto.OrderResponse;
+import com.ecommerce.order.model.Order;
+import com.ecommerce.order.model.OrderItem;
+import com.ecommerce.order.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Keyset paging through {@link OrderService#getOrders} against the real repository queries.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.sql.init.mode=never"
+})
+class OrderPagingTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private OrderService orderService;
+    //Newest first: two distinct timestamps, then three orders sharing one
+    private final List<Long> expectedOrder = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(orderRepository, mock(CartService.class), mock(UserExistenceCache.class),
+                mock(ProductServiceClient.class), mock(RemoteCallExecutor.class), mock(TransactionTemplate.class),
+                mock(OutboxService.class));
+
+        //Saved oldest id first but stamped newest first, so ordering must come from createdAt
+        Long newest = save("u1", NOON.plusMinutes(2));
+        Long second = save("u1", NOON.plusMinutes(1));
+        Long tiedLow = save("u1", NOON);
+        Long tiedMid = save("u1", NOON);
+        Long tiedHigh = save("u1", NOON);
+        save("u2", NOON.plusMinutes(5));
+        entityManager.clear();
+
+        expectedOrder.addAll(List.of(newest, second, tiedHigh, tiedMid, tiedLow));
+    }
+
+    @Test
+    void pagesThroughEveryOrderOnceNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPage page = orderService.getOrders("u1", cursor, 2);
+            page.getItems().forEach(order -> seen.add(order.getId()));
+            pageSizes.add(page.getItems().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(expectedOrder);
+        assertThat(pageSizes).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoNextCursor() {
+        OrderPage page = orderService.getOrders("u1", null, 5);
+
+        assertThat(page.getItems()).extracting(OrderResponse::getId).containsExactlyElementsOf(expectedOrder);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsClampedToAtLeastOne() {
+        OrderPage page = orderService.getOrders("u1", null, 0);
+
+        assertThat(page.getItems()).extracting(OrderResponse::getId).containsExactly(expectedOrder.get(0));
+        assertThat(page.getNextCursor()).isNotNull();
+    }
+
+    @Test
+    void userWithoutOrdersGetsAnEmptyPage() {
+        OrderPage page = orderService.getOrders("u3", null, 10);
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String badTimestamp = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("yesterday|1".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of("%%%", "bm90LWEtY3Vyc29y", badTimestamp)) {
+            assertThatThrownBy(() -> orderService.getOrders("u1", cursor, 10))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Invalid cursor");
+        }
+    }
+
+    private Long save(String userId, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setTotalAmount(new BigDecimal("9.99"));
+        order.getItems().add(new OrderItem("p1", 1, new BigDecimal("9.99"), order));
+        Long id = orderRepository.saveAndFlush(order).getId();
+        //createdAt is set by Hibernate on insert, so backdate it afterwards
+        entityManager.createQuery("UPDATE orders o SET o.createdAt = :createdAt WHERE o.id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", id)
+                .executeUpdate();
+        return id;
+    }
+}
@@ -0,0 +1,125 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.cache.UserExistenceCache;
+import com.ecommerce.order.clients.ProductServiceClient;
+import com.ecommerce.order.clients.RemoteCallExecutor;
+import com.ecommerce.order.exception.ServiceUnavailableException;
+import com.ecommerce.order.model.Order;
+import com.ecommerce.order.model.OrderItem;
+import com.ecommerce.order.model.OrderStatus;
+import com.ecommerce.order.repository.CartStore;
+import com.ecommerce.order.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderReservationConfirmationTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CartService cartService;
+
+    @Mock
+    private ProductServiceClient productServiceClient;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private OutboxService outboxService;
+
+    private OrderService orderService;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(orderRepository, cartService, mock(UserExistenceCache.class),
+                productServiceClient, mock(RemoteCallExecutor.class), transactionTemplate, outboxService);
+
+        order = new Order();
+        order.setId(42L);
+        order.setUserId("u1");
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setReservationId("res-1");
+        order.setReservationConfirmed(false);
+        order.getItems().add(new OrderItem("p1", 2, new BigDecimal("9.99"), order));
+
+        when(orderRepository.findById(42L)).thenReturn(Optional.of(order));
+        lenient().when(orderRepository.findForUpdateById(42L)).thenReturn(Optional.of(order));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void confirmedReservationIsRecordedOnTheOrder() {
+        assertThat(orderService.confirmReservation(42L)).isTrue();
+
+        verify(productServiceClient).confirmReservation("res-1");
+        verify(orderRepository).markReservationConfirmed(42L);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+    }
+
+    @Test
+    void confirmAfterExpiryCancelsTheOrderAndReturnsItsLines() {
+        when(productServiceClient.confirmReservation("res-1")).thenThrow(HttpClientErrorException.create(
+                HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), null, null));
+
+        assertThat(orderService.confirmReservation(42L)).isFalse();
+
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(order.getFailureReason()).contains("expired");
+        verify(outboxService).orderCancelled(order);
+        verify(cartService).addBackToCart("u1", List.of(new CartStore.CartLine("p1", 2, new BigDecimal("9.99"))));
+        verify(orderRepository, never()).markReservationConfirmed(anyLong());
+    }
+
+    @Test
+    void transientFailureLeavesTheOrderForTheRetryJob() {
+        when(productServiceClient.confirmReservation("res-1"))
+                .thenThrow(new ServiceUnavailableException("product-service is currently unavailable", null));
+
+        assertThat(orderService.confirmReservation(42L)).isTrue();
+
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(order.getReservationConfirmed()).isFalse();
+        verify(orderRepository, never()).markReservationConfirmed(anyLong());
+        verifyNoInteractions(outboxService, cartService);
+    }
+
+    @Test
+    void alreadyConfirmedReservationIsNotConfirmedAgain() {
+        order.setReservationConfirmed(true);
+
+        assertThat(orderService.confirmReservation(42L)).isTrue();
+
+        verifyNoInteractions(productServiceClient);
+    }
+}
@@ -0,0 +1,152 @@
+package com.ecommerce.order.service;
+
+import com.ecommerce.order.model.OutboxEvent;
+import com.ecommerce.order.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations operations;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxEventRepository, rabbitTemplate, transactionTemplate,
+                "order.events", BATCH_SIZE, Duration.ofSeconds(5), Duration.ofDays(7));
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+    }
+
+    @Test
+    void marksEventsPublishedOnlyAfterTheBrokerConfirms() {
+        when(outboxEventRepository.lockUnpublished(BATCH_SIZE)).thenReturn(List.of(event(1L)));
+
+        relay.relay();
+
+        InOrder order = inOrder(operations, outboxEventRepository);
+        order.verify(operations).send(eq("order.events"), eq("order.created"), any(Message.class));
+        order.verify(operations).waitForConfirmsOrDie(5000);
+        order.verify(outboxEventRepository).markPublished(eq(List.of(1L)), any());
+    }
+
+    @Test
+    void messageCarriesEventIdAndAggregateHeaders() {
+        when(outboxEventRepository.lockUnpublished(BATCH_SIZE)).thenReturn(List.of(event(7L)));
+
+        relay.relay();
+
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(operations).send(eq("order.events"), eq("order.created"), message.capture());
+        assertThat(message.getValue().getMessageProperties().getMessageId()).isEqualTo("7");
+        assertThat(message.getValue().getMessageProperties().<String>getHeader("aggregateType")).isEqualTo("order");
+        assertThat(message.getValue().getMessageProperties().<String>getHeader("aggregateId")).isEqualTo("order-7");
+        assertThat(new String(message.getValue().getBody())).isEqualTo("{\"orderId\":7}");
+    }
+
+    @Test
+    void unconfirmedBatchStaysUnpublished() {
+        when(outboxEventRepository.lockUnpublished(BATCH_SIZE)).thenReturn(List.of(event(1L), event(2L)));
+        doThrow(new AmqpException("nack")).when(operations).waitForConfirmsOrDie(anyLong());
+
+        relay.relay();
+
+        verify(outboxEventRepository, never()).markPublished(anyList(), any());
+    }
+
+    @Test
+    void keepsDrainingWhileBatchesComeBackFull() {
+        when(outboxEventRepository.lockUnpublished(BATCH_SIZE))
+                .thenReturn(List.of(event(1L), event(2L)))
+                .thenReturn(List.of(event(3L)));
+
+        relay.relay();
+
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any());
+        verify(outboxEventRepository).markPublished(eq(List.of(3L)), any());
+        verify(outboxEventRepository, times(2)).lockUnpublished(BATCH_SIZE);
+    }
+
+    @Test
+    void emptyOutboxPublishesNothing() {
+        when(outboxEventRepository.lockUnpublished(BATCH_SIZE)).thenReturn(List.of());
+
+        relay.relay();
+
+        verify(rabbitTemplate, never()).invoke(any());
+        verify(outboxEventRepository, never()).markPublished(anyList(), any());
+    }
+
+    @Test
+    void purgeDeletesEventsPublishedBeforeTheRetentionWindow() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        relay.purgePublished();
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEventRepository).deletePublishedBefore(before.capture());
+        assertThat(before.getValue()).isCloseTo(LocalDateTime.now().minusDays(7), within(1, ChronoUnit.MINUTES));
+    }
+
+    private OutboxEvent event(Long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType("order");
+        event.setAggregateId("order-" + id);
+        event.setEventType(OutboxService.ORDER_CREATED);
+        event.setPayload("{\"orderId\":" + id + "}");
+        return event;
+    }
+}
@@ -1,9 +1,14 @@
 package com.ecommerce.product;
 
+import com.ecommerce.product.event.ProductChangedEvent;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@RemoteApplicationEventScan(basePackageClasses = ProductChangedEvent.class)
+@EnableScheduling
 public class ProductApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,59 @@
+package com.ecommerce.product.actuator;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * {@code /actuator/connectionpool}: how close the Hikari pool is to running out.
+ * Wait-time percentiles come from the {@code hikaricp.connections.acquire} histogram.
+ */
+@Component
+@Endpoint(id = "connectionpool")
+@RequiredArgsConstructor
+public class ConnectionPoolEndpoint {
+
+    private final DataSource dataSource;
+
+    @ReadOperation
+    public PoolStatus poolStatus() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        int maximumPoolSize = hikari.getMaximumPoolSize();
+        if(pool == null) {
+            //Pool starts lazily on the first connection
+            return new PoolStatus(hikari.getPoolName(), maximumPoolSize, 0, 0, 0, 0, 0.0, false);
+        }
+
+        int active = pool.getActiveConnections();
+        int waiting = pool.getThreadsAwaitingConnection();
+        return new PoolStatus(
+                hikari.getPoolName(),
+                maximumPoolSize,
+                pool.getTotalConnections(),
+                active,
+                pool.getIdleConnections(),
+                waiting,
+                maximumPoolSize == 0 ? 0.0 : (double) active / maximumPoolSize,
+                waiting > 0
+        );
+    }
+
+    public record PoolStatus(
+            String poolName,
+            int maximumPoolSize,
+            int totalConnections,
+            int activeConnections,
+            int idleConnections,
+            int threadsAwaitingConnection,
+            double utilization,
+            boolean saturated
+    ) {
+    }
+}
@@ -1,12 +1,15 @@
 package com.ecommerce.product.controller;
 
+import com.ecommerce.product.dto.ProductPage;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
 import com.ecommerce.product.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -23,8 +26,19 @@ public class ProductController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getProducts(){
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<ProductPage> getProducts(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ){
+        return ResponseEntity.ok(productService.getProducts(cursor, limit));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(){
+        StreamingResponseBody body = productService::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -33,6 +47,11 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestBody List<String> ids){
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
             @PathVariable Long id,
@@ -49,8 +68,12 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String keyword){
-        return ResponseEntity.ok(productService.searchProduct(keyword));
+    public ResponseEntity<List<ProductResponse>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ){
+        return ResponseEntity.ok(productService.searchProduct(keyword, page, size));
     }
 
 
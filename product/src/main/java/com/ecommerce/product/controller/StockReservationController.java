@@ -0,0 +1,32 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.dto.ReservationRequest;
+import com.ecommerce.product.dto.ReservationResponse;
+import com.ecommerce.product.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/products/reservations")
+public class StockReservationController {
+    private final StockReservationService stockReservationService;
+
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@RequestBody ReservationRequest request){
+        return new ResponseEntity<>(stockReservationService.reserve(request), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable String id){
+        return ResponseEntity.ok(stockReservationService.confirm(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> release(@PathVariable String id){
+        stockReservationService.release(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,9 @@
+package com.ecommerce.product.dto;
+
+import lombok.Data;
+
+@Data
+public class ReservationItemRequest {
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.product.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ReservationRequest {
+    private List<ReservationItemRequest> items;
+}
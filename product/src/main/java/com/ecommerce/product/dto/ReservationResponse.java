@@ -0,0 +1,15 @@
+package com.ecommerce.product.dto;
+
+import com.ecommerce.product.model.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ReservationResponse {
+    private String id;
+    private ReservationStatus status;
+    private LocalDateTime expiresAt;
+}
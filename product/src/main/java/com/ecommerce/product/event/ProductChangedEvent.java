@@ -0,0 +1,19 @@
+package com.ecommerce.product.event;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductChangedEvent extends RemoteApplicationEvent {
+    private String productId;
+
+    public ProductChangedEvent(Object source, String originService, Destination destination, String productId) {
+        super(source, originService, destination);
+        this.productId = productId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.product.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ProductEventPublisher {
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BusProperties busProperties;
+    private final Destination.Factory destinationFactory;
+
+    public void publishProductChanged(Long productId) {
+        applicationEventPublisher.publishEvent(new ProductChangedEvent(
+                this,
+                busProperties.getId(),
+                destinationFactory.getDestination(null),
+                String.valueOf(productId)
+        ));
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.product.model;
+
+public enum ReservationStatus {
+    RESERVED,
+    CONFIRMED,
+    RELEASED
+}
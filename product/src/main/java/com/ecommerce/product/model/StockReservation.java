@@ -0,0 +1,32 @@
+package com.ecommerce.product.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity(name = "stock_reservations")
+@Table(indexes = @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class StockReservation {
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    private ReservationStatus status = ReservationStatus.RESERVED;
+
+    private LocalDateTime expiresAt;
+
+    @OneToMany(mappedBy = "reservation", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<StockReservationItem> items = new ArrayList<>();
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity(name = "stock_reservation_items")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockReservationItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long productId;
+
+    private Integer quantity;
+
+    @ManyToOne
+    @JoinColumn(name = "reservation_id", nullable = false)
+    private StockReservation reservation;
+}
@@ -2,25 +2,61 @@ package com.ecommerce.product.repository;
 
 import com.ecommerce.product.model.Product;
 import com.netflix.spectator.api.histogram.PercentileBuckets;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long > {
-    List<Product> findByActiveTrue();
+    //Must match the expression of idx_products_search_document in schema.sql
+    String SEARCH_DOCUMENT = "to_tsvector('simple', coalesce(p.name, '') || ' ' || coalesce(p.description, ''))";
+
+    List<Product> findByActiveTrueAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT p FROM products p WHERE p.active = true ORDER BY p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamActiveProducts();
 
     @Query(
-            "SELECT p FROM products p " +
-            "WHERE p.active = true " +
-            "AND p.stockQuantity > 0 " +
-            "AND LOWER(p.name) " + "LIKE LOWER(CONCAT('%', :keyword, '%'))"
+            value = "SELECT p.* FROM products p " +
+                    "WHERE p.active = true " +
+                    "AND p.stock_quantity > 0 " +
+                    "AND (" + SEARCH_DOCUMENT + " @@ websearch_to_tsquery('simple', :keyword) " +
+                    "OR lower(p.name) LIKE '%' || lower(:keyword) || '%') " +
+                    "ORDER BY ts_rank(" + SEARCH_DOCUMENT + ", websearch_to_tsquery('simple', :keyword)) DESC, " +
+                    "similarity(lower(p.name), lower(:keyword)) DESC, " +
+                    "p.id",
+            nativeQuery = true
     )
-    List<Product> searchProducts(@Param("keyword") String keyword);
+    List<Product> searchProducts(@Param("keyword") String keyword, Pageable pageable);
 
     Optional<Product> findByIdAndActiveTrue(Long id);
+
+    List<Product> findAllByIdInAndActiveTrue(Collection<Long> ids);
+
+    @Modifying
+    @Query(
+            "UPDATE products p SET p.stockQuantity = p.stockQuantity - :quantity " +
+            "WHERE p.id = :id AND p.active = true AND p.stockQuantity >= :quantity"
+    )
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE products p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
 }
@@ -0,0 +1,32 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.model.ReservationStatus;
+import com.ecommerce.product.model.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+    @Query("SELECT r.id FROM stock_reservations r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<String> findIdsByStatusAndExpiresAtBefore(
+            @Param("status") ReservationStatus status,
+            @Param("now") LocalDateTime now,
+            Limit limit
+    );
+
+    @Modifying
+    @Query("UPDATE stock_reservations r SET r.status = :to WHERE r.id = :id AND r.status = :from")
+    int transition(
+            @Param("id") String id,
+            @Param("from") ReservationStatus from,
+            @Param("to") ReservationStatus to
+    );
+}
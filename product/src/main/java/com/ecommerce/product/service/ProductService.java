@@ -1,21 +1,37 @@
 package com.ecommerce.product.service;
 
 
+import com.ecommerce.product.dto.ProductPage;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.event.ProductEventPublisher;
 import com.ecommerce.product.exception.ProductNotFoundException;
 import com.ecommerce.product.model.Product;
 import com.ecommerce.product.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final ProductRepository productRepository;
+    private final ProductEventPublisher productEventPublisher;
+    private final EntityManager entityManager;
+    private final JsonMapper jsonMapper;
 
     public ProductResponse createProduct(ProductRequest productRequest){
         Product product = new Product();
@@ -29,6 +45,7 @@ public class ProductService {
                 .map(existingProduct -> {
                     updateProductFromRequest(existingProduct, productRequest);
                     Product savedProduct = productRepository.save(existingProduct);
+                    productEventPublisher.publishProductChanged(savedProduct.getId());
                     return mapToProductResponse(savedProduct);
                 })
                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
@@ -40,10 +57,49 @@ public class ProductService {
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
     }
 
-    public List<ProductResponse> getAllProducts(){
-        return productRepository.findByActiveTrue().stream()
+    public List<ProductResponse> getProductsByIds(List<String> ids){
+        List<Long> productIds = ids.stream()
+                .map(Long::valueOf)
+                .distinct()
+                .toList();
+        if(productIds.isEmpty()){
+            return List.of();
+        }
+        return productRepository.findAllByIdInAndActiveTrue(productIds).stream()
+                .map(this::mapToProductResponse)
+                .collect(Collectors.toList());
+    }
+
+    public ProductPage getProducts(Long cursor, int limit){
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        //Fetch one extra row to know whether another page follows
+        List<Product> products = productRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(
+                cursor == null ? 0L : cursor,
+                Limit.of(pageSize + 1)
+        );
+
+        boolean hasMore = products.size() > pageSize;
+        List<ProductResponse> items = products.stream()
+                .limit(pageSize)
                 .map(this::mapToProductResponse)
                 .collect(Collectors.toList());
+        Long nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+        return new ProductPage(items, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream outputStream) throws IOException {
+        try (Stream<Product> products = productRepository.streamActiveProducts()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                outputStream.write(jsonMapper.writeValueAsBytes(mapToProductResponse(product)));
+                outputStream.write('\n');
+                //Keep the persistence context from growing with the catalog
+                entityManager.detach(product);
+            }
+        }
+        outputStream.flush();
     }
 
     public void deleteProduct(Long id){
@@ -51,10 +107,12 @@ public class ProductService {
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
         product.setActive(false);
         productRepository.save(product);
+        productEventPublisher.publishProductChanged(product.getId());
     }
 
-    public List<ProductResponse> searchProduct(String keyword) {
-        return  productRepository.searchProducts(keyword)
+    public List<ProductResponse> searchProduct(String keyword, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        return  productRepository.searchProducts(keyword.trim(), pageRequest)
                 .stream()
                 .map(this::mapToProductResponse)
                 .collect(Collectors.toList());
@@ -0,0 +1,38 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.model.ReservationStatus;
+import com.ecommerce.product.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationExpiryJob {
+    private static final int BATCH_SIZE = 100;
+
+    private final StockReservationRepository stockReservationRepository;
+    private final StockReservationService stockReservationService;
+
+    @Scheduled(fixedDelayString = "${app.reservations.expiry-check-interval-ms:30000}")
+    public void releaseExpiredReservations() {
+        List<String> expiredIds = stockReservationRepository.findIdsByStatusAndExpiresAtBefore(
+                ReservationStatus.RESERVED,
+                LocalDateTime.now(),
+                Limit.of(BATCH_SIZE)
+        );
+        for (String id : expiredIds) {
+            try {
+                stockReservationService.release(id);
+            } catch (Exception e) {
+                log.warn("Failed to release expired reservation {}", id, e);
+            }
+        }
+    }
+}
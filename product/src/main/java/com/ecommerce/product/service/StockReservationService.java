@@ -0,0 +1,106 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ReservationItemRequest;
+import com.ecommerce.product.dto.ReservationRequest;
+import com.ecommerce.product.dto.ReservationResponse;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.exception.ReservationNotFoundException;
+import com.ecommerce.product.model.ReservationStatus;
+import com.ecommerce.product.model.StockReservation;
+import com.ecommerce.product.model.StockReservationItem;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Service
+public class StockReservationService {
+    private final ProductRepository productRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final Duration reservationTtl;
+
+    public StockReservationService(
+            ProductRepository productRepository,
+            StockReservationRepository stockReservationRepository,
+            @Value("${app.reservations.ttl:10m}") Duration reservationTtl) {
+        this.productRepository = productRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.reservationTtl = reservationTtl;
+    }
+
+    @Transactional
+    public ReservationResponse reserve(ReservationRequest request) {
+        if(request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Reservation must contain at least one item");
+        }
+
+        //Merge duplicate lines and decrement in product id order, so concurrent
+        //reservations always lock rows in the same order and cannot deadlock
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReservationItemRequest item : request.getItems()) {
+            if(item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid reservation item: " + item);
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        StockReservation reservation = new StockReservation();
+        reservation.setId(UUID.randomUUID().toString());
+        reservation.setExpiresAt(LocalDateTime.now().plus(reservationTtl));
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            //Conditional decrement; any miss rolls back the whole reservation
+            if(productRepository.decrementStock(entry.getKey(), entry.getValue()) == 0) {
+                throw new InsufficientStockException("Insufficient stock for product id: " + entry.getKey());
+            }
+            reservation.getItems().add(new StockReservationItem(null, entry.getKey(), entry.getValue(), reservation));
+        }
+
+        return mapToReservationResponse(stockReservationRepository.save(reservation));
+    }
+
+    @Transactional
+    public ReservationResponse confirm(String id) {
+        StockReservation reservation = findReservation(id);
+        if(reservation.getStatus() == ReservationStatus.CONFIRMED) {
+            return mapToReservationResponse(reservation);
+        }
+        if(stockReservationRepository.transition(id, ReservationStatus.RESERVED, ReservationStatus.CONFIRMED) == 0) {
+            throw new ReservationNotFoundException("Reservation is no longer active: " + id);
+        }
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        return mapToReservationResponse(reservation);
+    }
+
+    @Transactional
+    public void release(String id) {
+        StockReservation reservation = findReservation(id);
+        //Only the caller that wins the status transition returns the stock
+        if(stockReservationRepository.transition(id, ReservationStatus.RESERVED, ReservationStatus.RELEASED) == 0) {
+            return;
+        }
+        for (StockReservationItem item : reservation.getItems()) {
+            productRepository.incrementStock(item.getProductId(), item.getQuantity());
+        }
+    }
+
+    private StockReservation findReservation(String id) {
+        return stockReservationRepository.findById(id)
+                .orElseThrow(() -> new ReservationNotFoundException("Reservation not found with id: " + id));
+    }
+
+    private ReservationResponse mapToReservationResponse(StockReservation reservation) {
+        return new ReservationResponse(
+                reservation.getId(),
+                reservation.getStatus(),
+                reservation.getExpiresAt()
+        );
+    }
+}
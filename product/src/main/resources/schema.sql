@@ -0,0 +1,10 @@
+-- Runs after Hibernate has created/updated the tables (spring.jpa.defer-datasource-initialization)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Full-text index matching the expression used by ProductRepository.searchProducts
+CREATE INDEX IF NOT EXISTS idx_products_search_document
+    ON products USING GIN (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, '')));
+
+-- Trigram index so substring matches on the name can avoid a sequential scan
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm
+    ON products USING GIN (lower(name) gin_trgm_ops);
@@ -0,0 +1,228 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ReservationItemRequest;
+import com.ecommerce.product.dto.ReservationRequest;
+import com.ecommerce.product.dto.ReservationResponse;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.exception.ReservationNotFoundException;
+import com.ecommerce.product.model.Product;
+import com.ecommerce.product.model.ReservationStatus;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.StockReservationRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Reservation state transitions against the real conditional UPDATEs. Each service call
+ * is followed by a flush and clear, as if it were its own request.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.sql.init.mode=never"
+})
+class StockReservationServiceTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private StockReservationService service;
+    private StockReservationExpiryJob expiryJob;
+    private Long keyboard;
+    private Long mouse;
+
+    @BeforeEach
+    void setUp() {
+        service = new StockReservationService(productRepository, stockReservationRepository, Duration.ofMinutes(10));
+        expiryJob = new StockReservationExpiryJob(stockReservationRepository, service);
+        keyboard = saveProduct("Keyboard", 10, true);
+        mouse = saveProduct("Mouse", 5, true);
+        flushAndClear();
+    }
+
+    @Test
+    void reserveTakesStockForMergedLines() {
+        ReservationResponse reservation = reserve(item(keyboard, 2), item(mouse, 1), item(keyboard, 3));
+
+        assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.RESERVED);
+        assertThat(reservation.getExpiresAt()).isCloseTo(LocalDateTime.now().plusMinutes(10), within(1, ChronoUnit.MINUTES));
+        assertThat(stock(keyboard)).isEqualTo(5);
+        assertThat(stock(mouse)).isEqualTo(4);
+        assertThat(stockReservationRepository.findById(reservation.getId()).orElseThrow().getItems()).hasSize(2);
+    }
+
+    @Test
+    void reserveRejectsMoreThanIsInStock() {
+        assertThatThrownBy(() -> reserve(item(mouse, 6)))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(stock(mouse)).isEqualTo(5);
+    }
+
+    @Test
+    void reserveRejectsInactiveProducts() {
+        Long retired = saveProduct("Trackball", 10, false);
+
+        assertThatThrownBy(() -> reserve(item(retired, 1)))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(stock(retired)).isEqualTo(10);
+    }
+
+    @Test
+    void reserveRejectsEmptyAndNonPositiveLines() {
+        assertThatThrownBy(() -> reserve()).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reserve(item(keyboard, 0))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void confirmKeepsStockTakenAndIsIdempotent() {
+        String id = reserve(item(keyboard, 2)).getId();
+
+        assertThat(service.confirm(id).getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        flushAndClear();
+        assertThat(service.confirm(id).getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+        flushAndClear();
+
+        assertThat(status(id)).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(stock(keyboard)).isEqualTo(8);
+    }
+
+    @Test
+    void releaseReturnsStockExactlyOnce() {
+        String id = reserve(item(keyboard, 2), item(mouse, 1)).getId();
+
+        service.release(id);
+        flushAndClear();
+        service.release(id);
+        flushAndClear();
+
+        assertThat(status(id)).isEqualTo(ReservationStatus.RELEASED);
+        assertThat(stock(keyboard)).isEqualTo(10);
+        assertThat(stock(mouse)).isEqualTo(5);
+    }
+
+    @Test
+    void releaseAfterConfirmLeavesTheSaleInPlace() {
+        String id = reserve(item(keyboard, 2)).getId();
+        service.confirm(id);
+        flushAndClear();
+
+        service.release(id);
+        flushAndClear();
+
+        assertThat(status(id)).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(stock(keyboard)).isEqualTo(8);
+    }
+
+    @Test
+    void confirmAfterReleaseIsRejected() {
+        String id = reserve(item(keyboard, 2)).getId();
+        service.release(id);
+        flushAndClear();
+
+        assertThatThrownBy(() -> service.confirm(id)).isInstanceOf(ReservationNotFoundException.class);
+        assertThat(stock(keyboard)).isEqualTo(10);
+    }
+
+    @Test
+    void confirmAfterExpiryIsRejected() {
+        String id = reserve(item(keyboard, 2)).getId();
+        entityManager.createQuery("UPDATE stock_reservations r SET r.expiresAt = :past WHERE r.id = :id")
+                .setParameter("past", LocalDateTime.now().minusMinutes(1))
+                .setParameter("id", id)
+                .executeUpdate();
+        flushAndClear();
+        expiryJob.releaseExpiredReservations();
+        flushAndClear();
+
+        //Order-service treats this 404 as "cancel the order": the stock is back on sale
+        assertThatThrownBy(() -> service.confirm(id)).isInstanceOf(ReservationNotFoundException.class);
+        assertThat(stock(keyboard)).isEqualTo(10);
+    }
+
+    @Test
+    void unknownReservationIsNotFound() {
+        assertThatThrownBy(() -> service.confirm("missing")).isInstanceOf(ReservationNotFoundException.class);
+        assertThatThrownBy(() -> service.release("missing")).isInstanceOf(ReservationNotFoundException.class);
+    }
+
+    @Test
+    void expiryJobReleasesOnlyExpiredReservations() {
+        String expired = reserve(item(keyboard, 2)).getId();
+        String active = reserve(item(mouse, 1)).getId();
+        String confirmed = reserve(item(keyboard, 1)).getId();
+        service.confirm(confirmed);
+        entityManager.createQuery("UPDATE stock_reservations r SET r.expiresAt = :past WHERE r.id IN :ids")
+                .setParameter("past", LocalDateTime.now().minusMinutes(1))
+                .setParameter("ids", List.of(expired, confirmed))
+                .executeUpdate();
+        flushAndClear();
+
+        expiryJob.releaseExpiredReservations();
+        flushAndClear();
+
+        assertThat(status(expired)).isEqualTo(ReservationStatus.RELEASED);
+        assertThat(status(active)).isEqualTo(ReservationStatus.RESERVED);
+        assertThat(status(confirmed)).isEqualTo(ReservationStatus.CONFIRMED);
+        assertThat(stock(keyboard)).isEqualTo(9);
+        assertThat(stock(mouse)).isEqualTo(4);
+    }
+
+    private ReservationResponse reserve(ReservationItemRequest... items) {
+        ReservationRequest request = new ReservationRequest();
+        request.setItems(List.of(items));
+        ReservationResponse response = service.reserve(request);
+        flushAndClear();
+        return response;
+    }
+
+    private ReservationItemRequest item(Long productId, int quantity) {
+        ReservationItemRequest item = new ReservationItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private Long saveProduct(String name, int stock, boolean active) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("19.99"));
+        product.setStockQuantity(stock);
+        product.setActive(active);
+        return productRepository.saveAndFlush(product).getId();
+    }
+
+    private int stock(Long productId) {
+        return entityManager.createQuery("SELECT p.stockQuantity FROM products p WHERE p.id = :id", Integer.class)
+                .setParameter("id", productId)
+                .getSingleResult();
+    }
+
+    private ReservationStatus status(String reservationId) {
+        return entityManager.createQuery("SELECT r.status FROM stock_reservations r WHERE r.id = :id", ReservationStatus.class)
+                .setParameter("id", reservationId)
+                .getSingleResult();
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
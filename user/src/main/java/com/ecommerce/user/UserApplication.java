@@ -1,9 +1,12 @@
 package com.ecommerce.user;
 
+import com.ecommerce.user.event.UserChangedEvent;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
 
 @SpringBootApplication
+@RemoteApplicationEventScan(basePackageClasses = UserChangedEvent.class)
 public class UserApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,20 @@
+package com.ecommerce.user.cache;
+
+import com.ecommerce.user.dto.UserResponse;
+
+import java.util.Optional;
+
+/**
+ * Optional shared tier behind the in-process user cache (e.g. Redis). When no
+ * bean of this type is present, only the local tier is used.
+ */
+public interface RemoteUserCache {
+
+    Optional<UserResponse> get(String userId);
+
+    void put(String userId, UserResponse user);
+
+    void evict(String userId);
+
+    void clear();
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.user.cache;
+
+import com.ecommerce.user.dto.UserResponse;
+import com.ecommerce.user.event.UserChangedEvent;
+import com.ecommerce.user.event.UsersImportedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+@Component
+public class UserCache {
+
+    private final Cache<String, UserResponse> cache;
+    private final RemoteUserCache remoteCache;
+    private final BusProperties busProperties;
+
+    public UserCache(
+            MeterRegistry meterRegistry,
+            ObjectProvider<RemoteUserCache> remoteCache,
+            BusProperties busProperties,
+            @Value("${app.user-cache.maximum-size:100000}") long maximumSize,
+            @Value("${app.user-cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.remoteCache = remoteCache.getIfAvailable();
+        this.busProperties = busProperties;
+        //Exposes hit ratio, evictions and load latency (cache.load.duration)
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    public UserResponse get(String userId, Function<String, UserResponse> loader) {
+        return cache.get(userId, id -> {
+            if(remoteCache != null) {
+                UserResponse remote = remoteCache.get(id).orElse(null);
+                if(remote != null) {
+                    return remote;
+                }
+            }
+            UserResponse loaded = loader.apply(id);
+            if(loaded != null && remoteCache != null) {
+                remoteCache.put(id, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    public void put(String userId, UserResponse user) {
+        cache.put(userId, user);
+        if(remoteCache != null) {
+            remoteCache.put(userId, user);
+        }
+    }
+
+    public void evict(Collection<String> userIds) {
+        cache.invalidateAll(userIds);
+        if(remoteCache != null) {
+            userIds.forEach(remoteCache::evict);
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        //Our own writes are already in the cache; drop copies another instance changed
+        if(!busProperties.getId().equals(event.getOriginService())) {
+            cache.invalidate(event.getUserId());
+        }
+    }
+
+    @EventListener
+    public void onUsersImported(UsersImportedEvent event) {
+        //Another instance imported a batch; the origin already evicted these from its cache and the shared tier
+        if(!busProperties.getId().equals(event.getOriginService())) {
+            cache.invalidateAll(event.getUserIds());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.ecommerce.user.controller;
 
 
+import com.ecommerce.user.dto.UserImportResult;
+import com.ecommerce.user.dto.UserPage;
 import com.ecommerce.user.dto.UserRequest;
 import com.ecommerce.user.dto.UserResponse;
 import com.ecommerce.user.service.UserService;
@@ -9,10 +11,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
@@ -23,8 +29,20 @@ public class UserController {
 
 
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers(){
-        return ResponseEntity.ok(userService.fetchAllUsers());
+    public ResponseEntity<UserPage> getUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "") Set<String> fields
+    ){
+        return ResponseEntity.ok(userService.getUsers(cursor, limit, fields));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "") Set<String> fields){
+        StreamingResponseBody body = outputStream -> userService.exportUsers(fields, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PostMapping
@@ -34,6 +52,11 @@ public class UserController {
                 .body("User created successfully");
     }
 
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<UserImportResult> importUsers(InputStream body) throws IOException {
+        return ResponseEntity.ok(userService.importUsers(body));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<String> updateUser(@PathVariable String id, @RequestBody UserRequest userRequest){
         userService.updatedUser(id, userRequest);
@@ -46,4 +69,11 @@ public class UserController {
         UserResponse response = userService.findUserById(id);
         return ResponseEntity.ok(response);
     }
+
+    @RequestMapping(path = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> userExists(@PathVariable String id){
+        return userService.userExists(id)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
 }
@@ -0,0 +1,11 @@
+package com.ecommerce.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserImportError {
+    private long line;
+    private String message;
+}
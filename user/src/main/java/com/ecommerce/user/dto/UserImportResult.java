@@ -0,0 +1,16 @@
+package com.ecommerce.user.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserImportResult {
+    private long received;
+    private long inserted;
+    private long updated;
+    private long failed;
+    //Capped so a bad file cannot blow up the response; failed holds the full count
+    private List<UserImportError> errors = new ArrayList<>();
+}
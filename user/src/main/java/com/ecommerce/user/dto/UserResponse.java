@@ -2,9 +2,11 @@ package com.ecommerce.user.dto;
 
 
 import com.ecommerce.user.model.UserRole;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class UserResponse {
     private String id;
     private String firstName;
@@ -0,0 +1,19 @@
+package com.ecommerce.user.event;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserChangedEvent extends RemoteApplicationEvent {
+    private String userId;
+
+    public UserChangedEvent(Object source, String originService, Destination destination, String userId) {
+        super(source, originService, destination);
+        this.userId = userId;
+    }
+}
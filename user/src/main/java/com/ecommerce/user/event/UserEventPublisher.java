@@ -0,0 +1,35 @@
+package com.ecommerce.user.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class UserEventPublisher {
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BusProperties busProperties;
+    private final Destination.Factory destinationFactory;
+
+    public void publishUserChanged(String userId) {
+        applicationEventPublisher.publishEvent(new UserChangedEvent(
+                this,
+                busProperties.getId(),
+                destinationFactory.getDestination(null),
+                userId
+        ));
+    }
+
+    public void publishUsersImported(List<String> userIds) {
+        applicationEventPublisher.publishEvent(new UsersImportedEvent(
+                this,
+                busProperties.getId(),
+                destinationFactory.getDestination(null),
+                userIds
+        ));
+    }
+}
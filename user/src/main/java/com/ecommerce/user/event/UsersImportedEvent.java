@@ -0,0 +1,22 @@
+package com.ecommerce.user.event;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+import java.util.List;
+
+//One per import batch that wrote anything: the ids of every user it created or updated
+@Getter
+@Setter
+@NoArgsConstructor
+public class UsersImportedEvent extends RemoteApplicationEvent {
+    private List<String> userIds;
+
+    public UsersImportedEvent(Object source, String originService, Destination destination, List<String> userIds) {
+        super(source, originService, destination);
+        this.userIds = userIds;
+    }
+}
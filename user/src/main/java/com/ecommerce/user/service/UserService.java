@@ -2,46 +2,282 @@ package com.ecommerce.user.service;
 
 
 import com.ecommerce.user.dto.AddressDto;
+import com.ecommerce.user.cache.UserCache;
+import com.ecommerce.user.dto.UserImportError;
+import com.ecommerce.user.dto.UserImportResult;
+import com.ecommerce.user.dto.UserPage;
 import com.ecommerce.user.dto.UserRequest;
 import com.ecommerce.user.dto.UserResponse;
+import com.ecommerce.user.event.UserEventPublisher;
 import com.ecommerce.user.exception.UserNotFoundException;
 import com.ecommerce.user.model.Address;
 import com.ecommerce.user.model.User;
 import com.ecommerce.user.repository.UserRepository;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_IMPORT_ERRORS = 1000;
+
+    //Response field -> document field, for ?fields= projections
+    private static final Map<String, String> PROJECTABLE_FIELDS = Map.of(
+            "id", "_id",
+            "firstName", "firstName",
+            "lastName", "lastName",
+            "email", "email",
+            "phone", "phone",
+            "role", "role",
+            "address", "address"
+    );
+
     private final UserRepository userRepository;
+    private final UserEventPublisher userEventPublisher;
+    private final MongoTemplate mongoTemplate;
+    private final JsonMapper jsonMapper;
+    private final UserCache userCache;
 
-    public List<UserResponse> fetchAllUsers(){
-        return  userRepository.findAll().stream()
-                .map(this::mapToUserResponse)
+    @Value("${app.users.import-batch-size:1000}")
+    private int importBatchSize;
+
+    public UserPage getUsers(String cursor, int limit, Set<String> fields){
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        Query query = projectedQuery(fields);
+        if(cursor != null){
+            query.addCriteria(Criteria.where("_id").gt(parseCursor(cursor)));
+        }
+        //Fetch one extra document to know whether another page follows
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(pageSize + 1);
+
+        List<User> users = mongoTemplate.find(query, User.class);
+        boolean hasMore = users.size() > pageSize;
+        List<UserResponse> items = users.stream()
+                .limit(pageSize)
+                .map(user -> mapToUserResponse(user, fields))
                 .collect(Collectors.toList());
+        String nextCursor = hasMore ? users.get(pageSize - 1).getId() : null;
+        return new UserPage(items, nextCursor);
+    }
+
+    public void exportUsers(Set<String> fields, OutputStream outputStream) throws IOException {
+        Query query = projectedQuery(fields)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(EXPORT_BATCH_SIZE);
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                outputStream.write(jsonMapper.writeValueAsBytes(mapToUserResponse(iterator.next(), fields)));
+                outputStream.write('\n');
+            }
+        }
+        outputStream.flush();
     }
 
     public void addUser(UserRequest userRequest){
         User user = new User();
         updateUserFromRequest(user, userRequest);
         userRepository.save(user);
+        userEventPublisher.publishUserChanged(user.getId());
     }
 
     public void updatedUser(String id, UserRequest updatedUserRequest){
         User existingUser = userRepository.findById(String.valueOf(id))
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
         updateUserFromRequest(existingUser, updatedUserRequest);
-        userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        userCache.put(savedUser.getId(), mapToUserResponse(savedUser));
+        userEventPublisher.publishUserChanged(savedUser.getId());
     }
 
     public UserResponse findUserById(String id){
-        return userRepository.findById(String.valueOf(id))
+        UserResponse user = userCache.get(id, userId -> userRepository.findById(userId)
                 .map(this::mapToUserResponse)
-                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+                .orElse(null));
+        if(user == null){
+            throw new UserNotFoundException("User not found with id: " + id);
+        }
+        return user;
+    }
+
+    public UserImportResult importUsers(InputStream inputStream) throws IOException {
+        UserImportResult result = new UserImportResult();
+        //Keyed by email so a repeated email within a batch is written once; the last line wins and
+        //the earlier one is reported, so received always equals inserted + updated + failed
+        Map<String, ImportLine> batch = new LinkedHashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if(line.isBlank()){
+                continue;
+            }
+            result.setReceived(result.getReceived() + 1);
+            try {
+                UserRequest request = jsonMapper.readValue(line, UserRequest.class);
+                if(request.getEmail() == null || request.getEmail().isBlank()){
+                    reportImportError(result, lineNumber, "email is required");
+                    continue;
+                }
+                ImportLine superseded = batch.put(request.getEmail(), new ImportLine(lineNumber, request));
+                if(superseded != null){
+                    reportImportError(result, superseded.lineNumber(), "Superseded by line " + lineNumber + " with the same email");
+                }
+            } catch (JacksonException e) {
+                reportImportError(result, lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            if(batch.size() >= importBatchSize){
+                writeImportBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if(!batch.isEmpty()){
+            writeImportBatch(batch, result);
+        }
+        return result;
+    }
+
+    private void writeImportBatch(Map<String, ImportLine> batch, UserImportResult result){
+        //Unordered: one failing document does not stop the rest of the batch
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        List<ImportLine> lines = new ArrayList<>(batch.values());
+        LocalDateTime now = LocalDateTime.now();
+        for (ImportLine importLine : lines) {
+            User user = new User();
+            updateUserFromRequest(user, importLine.request());
+            Update update = new Update()
+                    .set("updatedAt", now)
+                    .setOnInsert("role", user.getRole())
+                    .setOnInsert("createdAt", now);
+            //Fields a line leaves out keep their stored values rather than being nulled
+            if(user.getFirstName() != null){
+                update.set("firstName", user.getFirstName());
+            }
+            if(user.getLastName() != null){
+                update.set("lastName", user.getLastName());
+            }
+            if(user.getPhone() != null){
+                update.set("phone", user.getPhone());
+            }
+            if(user.getAddress() != null){
+                update.set("address", user.getAddress());
+            }
+            //The unique email index makes email the natural upsert key
+            operations.upsert(Query.query(Criteria.where("email").is(user.getEmail())), update);
+        }
+
+        BulkWriteResult writeResult;
+        try {
+            writeResult = operations.execute();
+        } catch (BulkOperationException e) {
+            writeResult = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                reportImportError(result, lines.get(error.getIndex()).lineNumber(), error.getMessage());
+            }
+        }
+        result.setInserted(result.getInserted() + writeResult.getUpserts().size());
+        result.setUpdated(result.getUpdated() + writeResult.getMatchedCount());
+        if(writeResult.getUpserts().isEmpty() && writeResult.getMatchedCount() == 0){
+            return;
+        }
+
+        //Upserts match by email, so look up the touched ids in one query on the unique email index
+        Query touched = Query.query(Criteria.where("email").in(batch.keySet()));
+        touched.fields().include("_id");
+        List<String> userIds = mongoTemplate.find(touched, User.class).stream()
+                .map(User::getId)
+                .toList();
+        //Evict here and in the shared tier before telling peers, so a peer that reloads after
+        //the event cannot pick up a stale shared copy. New users also stop being "not found"
+        //in other services' existence caches
+        userCache.evict(userIds);
+        userEventPublisher.publishUsersImported(userIds);
+    }
+
+    private void reportImportError(UserImportResult result, long lineNumber, String message){
+        result.setFailed(result.getFailed() + 1);
+        if(result.getErrors().size() < MAX_REPORTED_IMPORT_ERRORS){
+            result.getErrors().add(new UserImportError(lineNumber, message));
+        }
+    }
+
+    public boolean userExists(String id){
+        return userRepository.existsById(id);
+    }
+
+    private Query projectedQuery(Set<String> fields){
+        Query query = new Query();
+        if(fields.isEmpty()){
+            return query;
+        }
+        for (String field : fields) {
+            String documentField = PROJECTABLE_FIELDS.get(field);
+            if(documentField == null){
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            query.fields().include(documentField);
+        }
+        //The id is always read; it is the paging cursor
+        query.fields().include("_id");
+        return query;
+    }
+
+    private ObjectId parseCursor(String cursor){
+        if(!ObjectId.isValid(cursor)){
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new ObjectId(cursor);
+    }
+
+    private UserResponse mapToUserResponse(User user, Collection<String> fields){
+        UserResponse response = mapToUserResponse(user);
+        if(fields.isEmpty()){
+            return response;
+        }
+        //Drop fields that were not asked for, including defaults the mapping filled in
+        if(!fields.contains("id")) response.setId(null);
+        if(!fields.contains("firstName")) response.setFirstName(null);
+        if(!fields.contains("lastName")) response.setLastName(null);
+        if(!fields.contains("email")) response.setEmail(null);
+        if(!fields.contains("phone")) response.setPhone(null);
+        if(!fields.contains("role")) response.setRole(null);
+        if(!fields.contains("address")) response.setAddress(null);
+        return response;
     }
 
     private UserResponse mapToUserResponse(User user){
@@ -82,4 +318,7 @@ public class UserService {
             user.setAddress(address);
         }
     }
+
+    private record ImportLine(long lineNumber, UserRequest request) {
+    }
 }